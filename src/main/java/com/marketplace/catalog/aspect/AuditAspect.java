@@ -1,6 +1,7 @@
 package com.marketplace.catalog.aspect;
 
 import com.marketplace.catalog.model.AuditRecord;
+import com.marketplace.catalog.model.ImportResult;
 import com.marketplace.catalog.model.Product;
 import com.marketplace.catalog.model.User;
 import org.aspectj.lang.annotation.After;
@@ -42,6 +43,16 @@ public class AuditAspect {
         audit(username, "DELETE_PRODUCT", "id=" + id);
     }
 
+    @AfterReturning(
+            pointcut = "execution(* com.marketplace.catalog.service.ProductBulkService+.import*(..)) && args(.., username)",
+            returning = "result",
+            argNames = "username,result")
+    public void auditImport(String username, ImportResult result) {
+        audit(username, "IMPORT_PRODUCTS",
+                "total=" + result.totalRows() + " imported=" + result.importedRows()
+                        + " rejected=" + result.rejectedRows());
+    }
+
     @AfterReturning(
             pointcut = "execution(java.util.Optional com.marketplace.catalog.service.AuthService+.login(..)) && args(login, ..)",
             returning = "userOpt",
@@ -11,7 +11,31 @@ public class AppConfig implements Config {
     private static final String DB_USER     = "db.user";
     private static final String DB_PASSWORD = "db.password";
     private static final String DB_SCHEMA   = "db.schema";
+    private static final String DB_FETCH_SIZE = "db.fetchSize";
+    private static final String DB_BATCH_SIZE = "db.batchSize";
     private static final String LIQUIBASE_CHANGELOG = "liquibase.changelog";
+    private static final String REPOSITORY_TYPE = "repository.type";
+
+    private static final String POOL_MIN_IDLE           = "db.pool.minIdle";
+    private static final String POOL_MAX_SIZE           = "db.pool.maxSize";
+    private static final String POOL_ACQUIRE_TIMEOUT    = "db.pool.acquireTimeoutMs";
+    private static final String POOL_IDLE_TIMEOUT       = "db.pool.idleTimeoutMs";
+    private static final String POOL_MAX_LIFETIME       = "db.pool.maxLifetimeMs";
+    private static final String POOL_VALIDATION_TIMEOUT = "db.pool.validationTimeoutMs";
+    private static final String POOL_LEAK_DETECTION     = "db.pool.leakDetectionThresholdMs";
+
+    private static final String SEARCH_CACHE_MAX_ENTRIES = "search.cache.maxEntries";
+    private static final String SEARCH_CACHE_MAX_WEIGHT  = "search.cache.maxWeightBytes";
+    private static final String SEARCH_CACHE_TTL         = "search.cache.ttlSeconds";
+    private static final String SEARCH_INDEX_ENABLED     = "search.index.enabled";
+    private static final String PRODUCT_CACHE_MAX_ENTRIES = "product.cache.maxEntries";
+    private static final String LATENCY_DECAY_SECONDS     = "metrics.latency.decaySeconds";
+    private static final String PROMETHEUS_TOKEN          = "metrics.prometheus.token";
+
+    private static final String IMPORT_WORKERS        = "import.ndjson.workers";
+    private static final String IMPORT_QUEUE_CAPACITY = "import.ndjson.queueCapacity";
+    private static final String IMPORT_MAX_LINE_CHARS = "import.ndjson.maxLineChars";
+    private static final String IMPORT_MAX_CONCURRENT = "import.ndjson.maxConcurrent";
 
     private final Properties props = new Properties();
 
@@ -35,6 +59,24 @@ public class AppConfig implements Config {
         return v;
     }
 
+    private int getInt(String key) {
+        String v = get(key);
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigException("Invalid integer for key " + key + ": " + v, e);
+        }
+    }
+
+    private long getLong(String key) {
+        String v = get(key);
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigException("Invalid long for key " + key + ": " + v, e);
+        }
+    }
+
     @Override
     public String getDbUrl() {
         return get(DB_URL);
@@ -51,8 +93,100 @@ public class AppConfig implements Config {
     public String getDbSchema() {
         return get(DB_SCHEMA);
     }
+    @Override
+    public int getDbFetchSize() {
+        return getInt(DB_FETCH_SIZE);
+    }
+
+    @Override
+    public int getDbBatchSize() {
+        return getInt(DB_BATCH_SIZE);
+    }
+
     @Override
     public String getLiquibaseChangelog() {
         return get(LIQUIBASE_CHANGELOG);
     }
+
+    @Override
+    public int getPoolMinIdle() {
+        return getInt(POOL_MIN_IDLE);
+    }
+    @Override
+    public int getPoolMaxSize() {
+        return getInt(POOL_MAX_SIZE);
+    }
+    @Override
+    public long getPoolAcquireTimeoutMs() {
+        return getLong(POOL_ACQUIRE_TIMEOUT);
+    }
+    @Override
+    public long getPoolIdleTimeoutMs() {
+        return getLong(POOL_IDLE_TIMEOUT);
+    }
+    @Override
+    public long getPoolMaxLifetimeMs() {
+        return getLong(POOL_MAX_LIFETIME);
+    }
+    @Override
+    public long getPoolValidationTimeoutMs() {
+        return getLong(POOL_VALIDATION_TIMEOUT);
+    }
+    @Override
+    public long getPoolLeakDetectionThresholdMs() {
+        return getLong(POOL_LEAK_DETECTION);
+    }
+    @Override
+    public int getSearchCacheMaxEntries() {
+        return getInt(SEARCH_CACHE_MAX_ENTRIES);
+    }
+    @Override
+    public long getSearchCacheMaxWeightBytes() {
+        return getLong(SEARCH_CACHE_MAX_WEIGHT);
+    }
+    @Override
+    public long getSearchCacheTtlSeconds() {
+        return getLong(SEARCH_CACHE_TTL);
+    }
+    @Override
+    public boolean isSearchIndexEnabled() {
+        return Boolean.parseBoolean(get(SEARCH_INDEX_ENABLED).trim());
+    }
+    @Override
+    public RepositoryType getRepositoryType() {
+        String v = get(REPOSITORY_TYPE);
+        try {
+            return RepositoryType.valueOf(v.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException("Invalid value for key " + REPOSITORY_TYPE + ": " + v, e);
+        }
+    }
+    @Override
+    public int getProductCacheMaxEntries() {
+        return getInt(PRODUCT_CACHE_MAX_ENTRIES);
+    }
+    @Override
+    public long getLatencyDecaySeconds() {
+        return getLong(LATENCY_DECAY_SECONDS);
+    }
+    @Override
+    public String getPrometheusToken() {
+        return get(PROMETHEUS_TOKEN).trim();
+    }
+    @Override
+    public int getImportWorkers() {
+        return getInt(IMPORT_WORKERS);
+    }
+    @Override
+    public int getImportQueueCapacity() {
+        return getInt(IMPORT_QUEUE_CAPACITY);
+    }
+    @Override
+    public int getImportMaxLineChars() {
+        return getInt(IMPORT_MAX_LINE_CHARS);
+    }
+    @Override
+    public int getImportMaxConcurrent() {
+        return getInt(IMPORT_MAX_CONCURRENT);
+    }
 }
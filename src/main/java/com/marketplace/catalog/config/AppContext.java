@@ -2,24 +2,40 @@ package com.marketplace.catalog.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marketplace.catalog.db.ConnectionFactory;
+import com.marketplace.catalog.db.PoolStats;
+import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.repository.ProductBulkRepository;
 import com.marketplace.catalog.repository.UserRepository;
 import com.marketplace.catalog.repository.ProductRepository;
+import com.marketplace.catalog.repository.impl.jdbc.JdbcProductBulkRepository;
 import com.marketplace.catalog.repository.impl.jdbc.JdbcUserRepository;
 import com.marketplace.catalog.repository.impl.jdbc.JdbcProductRepository;
+import com.marketplace.catalog.repository.impl.memory.InMemoryProductRepository;
+import com.marketplace.catalog.repository.impl.memory.InMemoryUserRepository;
 import com.marketplace.catalog.service.AuthService;
 import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.ProductBulkService;
 import com.marketplace.catalog.service.ProductService;
+import com.marketplace.catalog.service.cache.SearchCacheSettings;
+import com.marketplace.catalog.service.index.ProductIndex;
 import com.marketplace.catalog.service.impl.AuthServiceImpl;
 import com.marketplace.catalog.service.impl.InMemoryMetrics;
+import com.marketplace.catalog.service.impl.NdjsonImportExecutor;
+import com.marketplace.catalog.service.impl.NdjsonImportSettings;
+import com.marketplace.catalog.service.impl.ProductBulkServiceImpl;
 import com.marketplace.catalog.service.impl.ProductServiceImpl;
 import com.marketplace.catalog.web.json.ObjectMapperFactory;
 import com.marketplace.catalog.web.mapper.ProductMapper;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import lombok.Getter;
 import org.mapstruct.factory.Mappers;
 
-public class AppContext {
+import java.time.Duration;
+
+public class AppContext implements AutoCloseable {
 
     @Getter
     private final Config config;
@@ -27,13 +43,20 @@ public class AppContext {
 
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final ProductBulkRepository productBulkRepository;
+    /** Общий пул потоков импорта NDJSON для всех запросов. */
+    private final NdjsonImportExecutor importExecutor;
 
     @Getter
     private final Metrics metrics;
     @Getter
+    private final HttpMetrics httpMetrics;
+    @Getter
     private final AuthService authService;
     @Getter
     private final ProductService productService;
+    @Getter
+    private final ProductBulkService productBulkService;
 
     @Getter
     private final ObjectMapper objectMapper;
@@ -44,18 +67,80 @@ public class AppContext {
 
     public AppContext() {
         this.config = new AppConfig();
-        this.connectionFactory = new ConnectionFactory(config);
 
-        this.userRepository = new JdbcUserRepository(connectionFactory, config.getDbSchema());
-        this.productRepository = new JdbcProductRepository(connectionFactory, config.getDbSchema());
+        if (config.getRepositoryType() == RepositoryType.MEMORY) {
+            // Без БД: пул не создаётся, COPY-операции недоступны
+            this.connectionFactory = null;
+            this.userRepository = inMemoryUsers();
+            this.productRepository = new InMemoryProductRepository();
+            this.productBulkRepository = null;
+        } else {
+            this.connectionFactory = new ConnectionFactory(config);
+            this.userRepository = new JdbcUserRepository(connectionFactory, config.getDbSchema());
+            this.productRepository = new JdbcProductRepository(
+                    connectionFactory, config.getDbSchema(), config.getDbFetchSize(), config.getDbBatchSize());
+            this.productBulkRepository = new JdbcProductBulkRepository(connectionFactory, config.getDbSchema());
+        }
 
-        this.metrics = new InMemoryMetrics();
-        this.productService = new ProductServiceImpl(productRepository, metrics);
-        this.authService = new AuthServiceImpl(userRepository);
+        Duration latencyDecay = Duration.ofSeconds(config.getLatencyDecaySeconds());
+        this.metrics = new InMemoryMetrics(latencyDecay);
+        this.httpMetrics = new HttpMetrics(latencyDecay);
+        this.productService = new ProductServiceImpl(
+                productRepository,
+                metrics,
+                searchCacheSettings(config),
+                config.isSearchIndexEnabled() ? new ProductIndex() : null,
+                config.getProductCacheMaxEntries());
+        NdjsonImportSettings importSettings = ndjsonImportSettings(config);
+        this.importExecutor = new NdjsonImportExecutor(importSettings);
+        this.productBulkService = new ProductBulkServiceImpl(
+                productBulkRepository, productRepository, productService, metrics, importSettings, importExecutor);
+        this.authService = new AuthServiceImpl(userRepository, metrics);
 
         this.objectMapper = ObjectMapperFactory.get();
         this.productMapper = Mappers.getMapper(ProductMapper.class);
         this.validator = Validation.buildDefaultValidatorFactory().getValidator();
     }
 
-}
\ No newline at end of file
+    /** Те же пользователи, что создаёт миграция 02-insert-data для БД. */
+    private static UserRepository inMemoryUsers() {
+        UserRepository users = new InMemoryUserRepository();
+        users.save(new User(null, "admin", "admin", Role.ADMIN));
+        users.save(new User(null, "user", "user", Role.VIEWER));
+        return users;
+    }
+
+    private static NdjsonImportSettings ndjsonImportSettings(Config config) {
+        return new NdjsonImportSettings(
+                config.getImportWorkers(),
+                config.getImportQueueCapacity(),
+                config.getDbBatchSize(),
+                config.getImportMaxLineChars(),
+                config.getImportMaxConcurrent());
+    }
+
+    private static SearchCacheSettings searchCacheSettings(Config config) {
+        return new SearchCacheSettings(
+                config.getSearchCacheMaxEntries(),
+                config.getSearchCacheMaxWeightBytes(),
+                Duration.ofSeconds(config.getSearchCacheTtlSeconds()));
+    }
+
+    /**
+     * Текущее состояние пула соединений; null в режиме без БД или до запуска пула.
+     */
+    public PoolStats getPoolStats() {
+        return connectionFactory != null ? connectionFactory.poolStats() : null;
+    }
+
+    /**
+     * Освобождает ресурсы приложения (пул потоков импорта, пул соединений с БД).
+     */
+    @Override
+    public void close() {
+        importExecutor.close();
+        if (connectionFactory != null) {
+            connectionFactory.close();
+        }
+    }
+}
@@ -37,5 +37,9 @@ public class BootstrapListener implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         log.info("ServletContext is being destroyed");
+        Object appContext = sce.getServletContext().getAttribute(ATTR_APP_CONTEXT);
+        if (appContext instanceof AppContext ctx) {
+            ctx.close();
+        }
     }
 }
\ No newline at end of file
@@ -5,5 +5,31 @@ public interface Config {
     String getDbUser();
     String getDbPassword();
     String getDbSchema();
+    int getDbFetchSize();
+    int getDbBatchSize();
     String getLiquibaseChangelog();
-}
\ No newline at end of file
+    RepositoryType getRepositoryType();
+
+    int getPoolMinIdle();
+    int getPoolMaxSize();
+    long getPoolAcquireTimeoutMs();
+    long getPoolIdleTimeoutMs();
+    long getPoolMaxLifetimeMs();
+    long getPoolValidationTimeoutMs();
+    long getPoolLeakDetectionThresholdMs();
+
+    int getSearchCacheMaxEntries();
+    long getSearchCacheMaxWeightBytes();
+    long getSearchCacheTtlSeconds();
+    boolean isSearchIndexEnabled();
+    int getProductCacheMaxEntries();
+
+    long getLatencyDecaySeconds();
+    /** Пустая строка — эндпоинт Prometheus закрыт. */
+    String getPrometheusToken();
+
+    int getImportWorkers();
+    int getImportQueueCapacity();
+    int getImportMaxLineChars();
+    int getImportMaxConcurrent();
+}
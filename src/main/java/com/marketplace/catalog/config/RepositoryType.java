@@ -0,0 +1,11 @@
+package com.marketplace.catalog.config;
+
+/**
+ * Хранилище данных приложения (ключ {@code repository.type}).
+ */
+public enum RepositoryType {
+    /** PostgreSQL через JDBC, схема создаётся Liquibase. */
+    JDBC,
+    /** Память процесса: без БД, данные теряются при перезапуске. */
+    MEMORY
+}
@@ -1,28 +1,83 @@
 package com.marketplace.catalog.db;
 
 import com.marketplace.catalog.config.Config;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-public final class ConnectionFactory {
-    private final String url;
-    private final String user;
-    private final String password;
+/**
+ * Источник соединений с PostgreSQL на базе ограниченного пула (HikariCP).
+ * <p>
+ * Соединение, полученное через {@link #getConnection()}, при закрытии
+ * возвращается в пул, а не разрывается. Параметры пула (min/max размер,
+ * таймаут ожидания, вытеснение простаивающих, проверка при выдаче,
+ * поиск утечек со стеком вызова) задаются в {@link Config}.
+ */
+public final class ConnectionFactory implements AutoCloseable {
+    private static final String DRIVER_CLASS = "org.postgresql.Driver";
+    private static final String POOL_NAME    = "catalog-pool";
+
+    private final HikariDataSource dataSource;
 
     public ConnectionFactory(Config config) {
         try {
-            Class.forName("org.postgresql.Driver");
+            Class.forName(DRIVER_CLASS);
         } catch (ClassNotFoundException e) {
             throw new IllegalStateException("PostgreSQL JDBC driver not found in classpath", e);
         }
-        this.url      = config.getDbUrl();
-        this.user     = config.getDbUser();
-        this.password = config.getDbPassword();
+        this.dataSource = new HikariDataSource(buildPoolConfig(config));
+    }
+
+    private static HikariConfig buildPoolConfig(Config config) {
+        HikariConfig hc = new HikariConfig();
+        hc.setPoolName(POOL_NAME);
+        hc.setDriverClassName(DRIVER_CLASS);
+        hc.setJdbcUrl(config.getDbUrl());
+        hc.setUsername(config.getDbUser());
+        hc.setPassword(config.getDbPassword());
+
+        hc.setMinimumIdle(config.getPoolMinIdle());
+        hc.setMaximumPoolSize(config.getPoolMaxSize());
+        hc.setConnectionTimeout(config.getPoolAcquireTimeoutMs());
+        hc.setIdleTimeout(config.getPoolIdleTimeoutMs());
+        hc.setMaxLifetime(config.getPoolMaxLifetimeMs());
+        // Соединение проверяется (Connection.isValid) перед выдачей из пула
+        hc.setValidationTimeout(config.getPoolValidationTimeoutMs());
+        // Если соединение не вернули за порог — в лог пишется стек места, где его взяли
+        hc.setLeakDetectionThreshold(config.getPoolLeakDetectionThresholdMs());
+
+        // Пул создаётся лениво: старт приложения не падает, если БД ещё поднимается
+        hc.setInitializationFailTimeout(-1);
+        return hc;
     }
 
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, user, password);
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Текущее состояние пула или null, если пул ещё не запущен.
+     */
+    public PoolStats poolStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return null;
+        }
+        return new PoolStats(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(),
+                dataSource.getMaximumPoolSize());
+    }
+
+    /**
+     * Закрывает пул и все физические соединения.
+     */
+    @Override
+    public void close() {
+        dataSource.close();
     }
 }
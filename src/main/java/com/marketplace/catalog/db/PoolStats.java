@@ -0,0 +1,16 @@
+package com.marketplace.catalog.db;
+
+/**
+ * Состояние пула соединений в момент чтения.
+ *
+ * @param active         соединения, выданные приложению
+ * @param idle           свободные соединения в пуле
+ * @param pendingThreads потоки, ожидающие соединение
+ * @param max            максимальный размер пула
+ */
+public record PoolStats(
+        int active,
+        int idle,
+        int pendingThreads,
+        int max
+) {}
@@ -0,0 +1,12 @@
+package com.marketplace.catalog.exception;
+
+/**
+ * Исключение, выбрасываемое, если файл массового импорта не удаётся разобрать
+ * (неверный формат, лишние или недостающие колонки).
+ */
+public class ProductImportException extends RuntimeException {
+
+    public ProductImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,29 @@
+package com.marketplace.catalog.exception;
+
+/**
+ * Исключение, выбрасываемое при обновлении товара с устаревшей версией:
+ * строку уже изменил кто-то другой.
+ */
+public class ProductVersionConflictException extends RuntimeException {
+
+    private final Long productId;
+    private final Long currentVersion;
+
+    /**
+     * @param productId      идентификатор товара
+     * @param currentVersion текущая версия в хранилище (null, если неизвестна)
+     */
+    public ProductVersionConflictException(Long productId, Long currentVersion) {
+        super("Product " + productId + " was modified concurrently");
+        this.productId = productId;
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
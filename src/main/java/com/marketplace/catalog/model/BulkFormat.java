@@ -0,0 +1,11 @@
+package com.marketplace.catalog.model;
+
+/**
+ * Формат файла массового импорта и выгрузки товаров.
+ */
+public enum BulkFormat {
+    /** CSV со строкой заголовка. */
+    CSV,
+    /** Один JSON-объект товара на строку (newline-delimited JSON). */
+    NDJSON
+}
@@ -0,0 +1,39 @@
+package com.marketplace.catalog.model;
+
+import java.util.List;
+
+/**
+ * Итог массового импорта товаров.
+ *
+ * @param totalRows     сколько записей прочитано из файла
+ * @param importedRows  сколько товаров добавлено в каталог
+ * @param rejectedRows  сколько записей отклонено
+ * @param errors        ошибки по записям (список может быть урезан, полное число — {@code rejectedRows})
+ * @param durationNanos длительность импорта
+ */
+public record ImportResult(long totalRows,
+                           long importedRows,
+                           long rejectedRows,
+                           List<ImportRowError> errors,
+                           long durationNanos) {
+
+    public ImportResult {
+        errors = List.copyOf(errors);
+    }
+
+    public ImportResult(long totalRows, long importedRows, long rejectedRows, List<ImportRowError> errors) {
+        this(totalRows, importedRows, rejectedRows, errors, 0L);
+    }
+
+    public ImportResult withDuration(long durationNanos) {
+        return new ImportResult(totalRows, importedRows, rejectedRows, errors, durationNanos);
+    }
+
+    /**
+     * Скорость обработки в записях в секунду.
+     */
+    public double rowsPerSecond() {
+        if (durationNanos == 0) return 0.0;
+        return totalRows / (durationNanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,10 @@
+package com.marketplace.catalog.model;
+
+/**
+ * Ошибка в строке файла массового импорта.
+ *
+ * @param row     номер записи в файле (с 1, без строки заголовка)
+ * @param message причина, по которой запись отклонена
+ */
+public record ImportRowError(long row, String message) {
+}
@@ -26,6 +26,11 @@ public class Product implements Serializable {
     private BigDecimal price;
     /** Описание товара. */
     private String description;
+    /**
+     * Версия строки для оптимистической блокировки: растёт на единицу при каждом обновлении.
+     * Если задана при обновлении, изменение применяется только к этой версии; null — без проверки.
+     */
+    private Long version;
 
     /**
      * Создаёт новый товар.
@@ -51,6 +56,15 @@ public class Product implements Serializable {
         this.description = description;
     }
 
+    /**
+     * @return независимая копия товара
+     */
+    public Product copy() {
+        Product copy = new Product(id, name, brand, category, price, description);
+        copy.version = version;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
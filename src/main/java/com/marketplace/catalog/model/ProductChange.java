@@ -0,0 +1,10 @@
+package com.marketplace.catalog.model;
+
+/**
+ * Результат обновления товара: версии до и после изменения.
+ *
+ * @param before товар до обновления
+ * @param after  товар после обновления
+ */
+public record ProductChange(Product before, Product after) {
+}
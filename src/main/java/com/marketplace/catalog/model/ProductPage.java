@@ -0,0 +1,20 @@
+package com.marketplace.catalog.model;
+
+import java.util.List;
+
+/**
+ * Страница товаров при keyset-пагинации.
+ *
+ * @param items       товары страницы
+ * @param nextAfterId id, после которого начинается следующая страница; null, если страница последняя
+ */
+public record ProductPage(List<Product> items, Long nextAfterId) {
+
+    public ProductPage {
+        items = List.copyOf(items);
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+}
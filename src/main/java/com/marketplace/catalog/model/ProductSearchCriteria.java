@@ -0,0 +1,142 @@
+package com.marketplace.catalog.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Критерии поиска товаров.
+ * Любое поле может быть null — тогда соответствующий фильтр не применяется.
+ * Бренд и текст хранятся в нормализованном виде (trim + lowercase, пустая строка → null),
+ * цены — без незначащих нулей, поэтому запросы {@code 10} и {@code 10.00} дают равные
+ * объекты и могут служить ключом кэша.
+ *
+ * @param category категория товара
+ * @param brand    бренд (точное совпадение без учёта регистра)
+ * @param minPrice минимальная цена (включительно)
+ * @param maxPrice максимальная цена (включительно)
+ * @param text     текст для поиска в названии или описании
+ * @param textMode режим текстового фильтра (по умолчанию {@link TextSearchMode#SUBSTRING})
+ */
+public record ProductSearchCriteria(
+        Category category,
+        String brand,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        String text,
+        TextSearchMode textMode
+) {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    public ProductSearchCriteria {
+        brand = normalize(brand);
+        text = normalize(text);
+        minPrice = canonical(minPrice);
+        maxPrice = canonical(maxPrice);
+        if (text == null || textMode == null) {
+            textMode = TextSearchMode.SUBSTRING;
+        }
+    }
+
+    public ProductSearchCriteria(Category category,
+                                 String brand,
+                                 BigDecimal minPrice,
+                                 BigDecimal maxPrice,
+                                 String text) {
+        this(category, brand, minPrice, maxPrice, text, TextSearchMode.SUBSTRING);
+    }
+
+    /**
+     * @return true, если ни один фильтр не задан
+     */
+    public boolean isEmpty() {
+        return category == null
+                && brand == null
+                && minPrice == null
+                && maxPrice == null
+                && text == null;
+    }
+
+    /**
+     * Проверяет товар на соответствие всем заданным фильтрам.
+     * Используется репозиториями, которые не умеют выполнять фильтрацию на своей стороне.
+     * Полнотекстовый режим здесь приближается проверкой "все слова запроса есть среди слов товара".
+     */
+    public boolean matches(Product p) {
+        return matchesCategory(p)
+                && matchesBrand(p)
+                && matchesPrice(p)
+                && matchesText(p);
+    }
+
+    /**
+     * Консервативная проверка для инвалидации кэша: false только если товар заведомо
+     * не может попасть в результат. Полнотекстовый фильтр (морфология и операторы
+     * которого вычисляются БД) считается совпавшим всегда.
+     */
+    public boolean mayMatch(Product p) {
+        return matchesCategory(p)
+                && matchesBrand(p)
+                && matchesPrice(p)
+                && (textMode == TextSearchMode.FULLTEXT || matchesText(p));
+    }
+
+    private boolean matchesCategory(Product p) {
+        return category == null || p.getCategory() == category;
+    }
+
+    private boolean matchesBrand(Product p) {
+        return brand == null || brand.equals(normalize(p.getBrand()));
+    }
+
+    private boolean matchesPrice(Product p) {
+        BigDecimal price = p.getPrice();
+        if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+            return false;
+        }
+        return maxPrice == null || price != null && price.compareTo(maxPrice) <= 0;
+    }
+
+    private boolean matchesText(Product p) {
+        if (text == null) {
+            return true;
+        }
+        return textMode == TextSearchMode.FULLTEXT ? containsWords(p) : containsSubstring(p);
+    }
+
+    /** Проверка вхождения текста в name/description. */
+    private boolean containsSubstring(Product p) {
+        String name = normalize(p.getName());
+        String desc = normalize(p.getDescription());
+        return (name != null && name.contains(text)) ||
+                (desc != null && desc.contains(text));
+    }
+
+    /** Все слова запроса встречаются среди слов названия, бренда или описания. */
+    private boolean containsWords(Product p) {
+        Set<String> words = Stream.of(p.getName(), p.getBrand(), p.getDescription())
+                .map(ProductSearchCriteria::normalize)
+                .filter(Objects::nonNull)
+                .flatMap(NON_WORD::splitAsStream)
+                .collect(Collectors.toSet());
+        return Arrays.stream(NON_WORD.split(text))
+                .filter(w -> !w.isEmpty())
+                .allMatch(words::contains);
+    }
+
+    private static BigDecimal canonical(BigDecimal price) {
+        return price != null ? price.stripTrailingZeros() : null;
+    }
+
+    /** Нормализует строку для сравнения (lowercase + trim); null/blank → null. */
+    public static String normalize(String s) {
+        if (s == null) return null;
+        String t = s.trim().toLowerCase();
+        return t.isBlank() ? null : t;
+    }
+}
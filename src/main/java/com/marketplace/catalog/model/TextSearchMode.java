@@ -0,0 +1,14 @@
+package com.marketplace.catalog.model;
+
+/**
+ * Режим текстового фильтра поиска.
+ * <ul>
+ *     <li>{@link #SUBSTRING} — вхождение подстроки в название или описание без учёта регистра;</li>
+ *     <li>{@link #FULLTEXT} — полнотекстовый поиск по словам названия, бренда и описания
+ *     с упорядочиванием по релевантности.</li>
+ * </ul>
+ */
+public enum TextSearchMode {
+    SUBSTRING,
+    FULLTEXT
+}
@@ -0,0 +1,37 @@
+package com.marketplace.catalog.repository;
+
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * Массовые операции с товарами в обход построчного сохранения.
+ */
+public interface ProductBulkRepository {
+
+    /**
+     * Загружает товары из CSV с заголовком и колонками
+     * {@code name,brand,category,price,description}. Корректные записи добавляются
+     * в каталог, некорректные отклоняются и попадают в отчёт.
+     *
+     * @param csv       содержимое файла
+     * @param maxErrors сколько ошибок по записям вернуть в отчёте
+     * @return итог импорта
+     */
+    ImportResult importCsv(Reader csv, int maxErrors);
+
+    /**
+     * Выгружает товары в порядке возрастания id прямо в поток, без промежуточных объектов.
+     * CSV содержит строку заголовка {@code id,name,brand,category,price,description};
+     * NDJSON — по JSON-объекту с теми же полями на строку.
+     *
+     * @param out      поток, в который пишется выгрузка (не закрывается)
+     * @param format   формат выгрузки
+     * @param category фильтр по категории или null
+     * @return число выгруженных товаров
+     */
+    long export(OutputStream out, BulkFormat format, Category category);
+}
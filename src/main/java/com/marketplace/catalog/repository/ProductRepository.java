@@ -1,9 +1,15 @@
 package com.marketplace.catalog.repository;
 
+import com.marketplace.catalog.exception.ProductVersionConflictException;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductSearchCriteria;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Репозиторий для управления товарами в каталоге.
@@ -18,6 +24,57 @@ public interface ProductRepository {
      */
     Product save(Product product);
 
+    /**
+     * Сохраняет набор товаров. Новым товарам (без id) присваиваются выданные БД идентификаторы.
+     * <p>
+     * Реализация по умолчанию вызывает {@link #save(Product)} для каждого товара;
+     * репозитории поверх БД должны сохранять пакетами за меньшее число обращений.
+     *
+     * @param products товары для сохранения
+     * @return сохранённые товары в исходном порядке
+     */
+    default List<Product> saveAll(Collection<Product> products) {
+        return products.stream()
+                .map(this::save)
+                .toList();
+    }
+
+    /**
+     * Обновляет существующий товар (по его id) и возвращает версии до и после изменения.
+     * Если у товара задана {@code version}, обновление выполняется только при совпадении
+     * с текущей версией строки.
+     * <p>
+     * Реализация по умолчанию читает товар и сохраняет его отдельными вызовами;
+     * репозитории поверх БД должны делать это одной командой.
+     *
+     * @param product новые значения полей вместе с id товара (и ожидаемой версией)
+     * @return версии товара или пустой Optional, если товара с таким id нет
+     * @throws ProductVersionConflictException если версия товара уже изменилась
+     */
+    default Optional<ProductChange> updateReturning(Product product) {
+        return findById(product.getId())
+                .map(before -> {
+                    if (product.getVersion() != null && !product.getVersion().equals(before.getVersion())) {
+                        throw new ProductVersionConflictException(product.getId(), before.getVersion());
+                    }
+                    return new ProductChange(before, save(product));
+                });
+    }
+
+    /**
+     * Удаляет товар и возвращает его последнюю версию.
+     * <p>
+     * Реализация по умолчанию читает и удаляет товар отдельными вызовами.
+     *
+     * @param id идентификатор
+     * @return удалённый товар или пустой Optional, если товара не было
+     */
+    default Optional<Product> deleteReturning(Long id) {
+        Optional<Product> existing = findById(id);
+        existing.ifPresent(p -> deleteById(id));
+        return existing;
+    }
+
     /**
      * Ищет товар по идентификатору.
      *
@@ -26,6 +83,23 @@ public interface ProductRepository {
      */
     Optional<Product> findById(Long id);
 
+    /**
+     * Ищет товары по набору идентификаторов.
+     * <p>
+     * Реализация по умолчанию вызывает {@link #findById(Long)} для каждого id;
+     * репозитории поверх БД должны выбирать все товары одним запросом.
+     *
+     * @param ids идентификаторы товаров
+     * @return найденные товары (без гарантии порядка; отсутствующие id пропускаются)
+     */
+    default List<Product> findAllByIds(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .map(this::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
     /**
      * Возвращает все товары.
      *
@@ -33,6 +107,54 @@ public interface ProductRepository {
      */
     List<Product> findAll();
 
+    /**
+     * Передаёт все товары в порядке возрастания id по одному, не собирая их в список.
+     * <p>
+     * Реализация по умолчанию обходит {@link #findAll()}; репозитории поверх БД
+     * должны читать строки курсором, чтобы память не зависела от размера каталога.
+     *
+     * @param action обработчик товара
+     */
+    default void forEach(Consumer<? super Product> action) {
+        findAll().forEach(action);
+    }
+
+    /**
+     * Ищет товары, подходящие под критерии, в порядке возрастания id
+     * (в полнотекстовом режиме хранилище может упорядочить их по релевантности).
+     * <p>
+     * Реализация по умолчанию фильтрует {@link #findAll()} в памяти; репозитории,
+     * умеющие выполнять фильтрацию на стороне хранилища, должны её переопределить.
+     *
+     * @param criteria критерии поиска
+     * @return список подходящих товаров
+     */
+    default List<Product> search(ProductSearchCriteria criteria) {
+        return findAll().stream()
+                .filter(criteria::matches)
+                .toList();
+    }
+
+    /**
+     * Keyset-пагинация: не более {@code limit} подходящих под критерии товаров
+     * с id больше {@code afterId}, в порядке возрастания id (независимо от режима
+     * текстового поиска). Глубокие страницы не дороже первой, в отличие от OFFSET.
+     * <p>
+     * Реализация по умолчанию работает поверх {@link #search(ProductSearchCriteria)}.
+     *
+     * @param criteria критерии поиска (пустые — весь каталог)
+     * @param afterId  id последнего товара предыдущей страницы (0 — с начала)
+     * @param limit    максимальное количество товаров
+     * @return товары страницы
+     */
+    default List<Product> findPage(ProductSearchCriteria criteria, long afterId, int limit) {
+        return search(criteria).stream()
+                .filter(p -> p.getId() > afterId)
+                .sorted(Comparator.comparing(Product::getId))
+                .limit(limit)
+                .toList();
+    }
+
     /**
      * Удаляет товар по идентификатору.
      *
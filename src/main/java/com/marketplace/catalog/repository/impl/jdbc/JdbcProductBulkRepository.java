@@ -0,0 +1,181 @@
+package com.marketplace.catalog.repository.impl.jdbc;
+
+import com.marketplace.catalog.db.ConnectionFactory;
+import com.marketplace.catalog.exception.ProductImportException;
+import com.marketplace.catalog.exception.RepositoryException;
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.ImportRowError;
+import com.marketplace.catalog.repository.ProductBulkRepository;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Массовые импорт и выгрузка через {@code COPY}.
+ * <p>
+ * Выгрузка — {@code COPY (SELECT ...) TO STDOUT}: строки формирует PostgreSQL,
+ * драйвер копирует их в поток ответа без разбора на объекты.
+ * <p>
+ * Импорт — {@code COPY ... FROM STDIN}.
+ * Файл целиком копируется во временную таблицу (все колонки — текст), затем одним
+ * {@code UPDATE} у каждой записи проверяются те же ограничения, что у {@code ProductRequest},
+ * и одним {@code INSERT ... SELECT} в каталог переносятся записи без ошибок.
+ * Всё выполняется в одной транзакции; временная таблица удаляется при её завершении.
+ */
+public class JdbcProductBulkRepository implements ProductBulkRepository {
+
+    private static final String TABLE_NAME = "product";
+
+    /** SQLSTATE класса 22 (data exception) — ошибка в содержимом файла, а не в работе БД. */
+    private static final String SQLSTATE_DATA_EXCEPTION = "22";
+
+    private static final String SQL_CREATE_STAGING = """
+            CREATE TEMP TABLE product_import (
+                row_no      BIGSERIAL,
+                name        TEXT,
+                brand       TEXT,
+                category    TEXT,
+                price       TEXT,
+                description TEXT,
+                error       TEXT
+            ) ON COMMIT DROP""";
+
+    private static final String SQL_COPY_CSV = """
+            COPY product_import (name, brand, category, price, description)
+            FROM STDIN WITH (FORMAT csv, HEADER true)""";
+
+    // Порядок проверок задаёт, какая ошибка попадёт в отчёт, если их у записи несколько
+    private static final String SQL_VALIDATE = """
+            UPDATE product_import SET error = CASE
+                WHEN name IS NULL OR btrim(name) = '' THEN 'name must not be blank'
+                WHEN length(btrim(name)) > 255 THEN 'name must be at most 255 characters'
+                WHEN brand IS NULL OR btrim(brand) = '' THEN 'brand must not be blank'
+                WHEN length(btrim(brand)) > 255 THEN 'brand must be at most 255 characters'
+                WHEN category IS NULL OR upper(btrim(category)) NOT IN (%s) THEN 'invalid category'
+                WHEN price IS NULL OR btrim(price) !~ '^[0-9]{1,17}(\\.[0-9]{1,2})?$' THEN 'invalid price'
+                WHEN length(description) > 2000 THEN 'description must be at most 2000 characters'
+            END""";
+
+    private static final String SQL_ERRORS = """
+            SELECT row_no, error
+            FROM product_import
+            WHERE error IS NOT NULL
+            ORDER BY row_no
+            LIMIT ?""";
+
+    private static final String SQL_MERGE = """
+            INSERT INTO %s (name, brand, category, price, description)
+            SELECT btrim(name), btrim(brand), upper(btrim(category)), btrim(price)::numeric, description
+            FROM product_import
+            WHERE error IS NULL
+            ORDER BY row_no""";
+
+    private static final String SQL_EXPORT_CSV = """
+            COPY (SELECT id, name, brand, category, price, description FROM %s%s ORDER BY id)
+            TO STDOUT WITH (FORMAT csv, HEADER true)""";
+
+    // JSON собирает PostgreSQL. Формат text экранировал бы обратные слэши в JSON, поэтому
+    // используется csv с кавычкой и разделителем, которых нет в тексте JSON: значение выводится как есть
+    private static final String SQL_EXPORT_NDJSON = """
+            COPY (SELECT json_build_object(
+                        'id', id, 'name', name, 'brand', brand,
+                        'category', category, 'price', price, 'description', description)
+                  FROM %s%s ORDER BY id)
+            TO STDOUT WITH (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')""";
+
+    // COPY не принимает параметры; подставляется только имя значения enum
+    private static final String SQL_CATEGORY_FILTER = " WHERE category = '%s'";
+
+    private static final String ERR_IMPORT  = "Bulk import failed";
+    private static final String ERR_EXPORT  = "Bulk export failed";
+    private static final String ERR_PARSE   = "Malformed import file: ";
+
+    private final ConnectionFactory connectionFactory;
+    private final String sqlValidate;
+    private final String sqlMerge;
+    private final String tableProducts;
+
+    public JdbcProductBulkRepository(ConnectionFactory connectionFactory, String schema) {
+        this.connectionFactory = connectionFactory;
+        this.sqlValidate = SQL_VALIDATE.formatted(Arrays.stream(Category.values())
+                .map(c -> "'" + c.name() + "'")
+                .collect(Collectors.joining(", ")));
+        this.tableProducts = schema + "." + TABLE_NAME;
+        this.sqlMerge = SQL_MERGE.formatted(tableProducts);
+    }
+
+    @Override
+    public ImportResult importCsv(Reader csv, int maxErrors) {
+        try (Connection c = connectionFactory.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                ImportResult result = importCsv(c, csv, maxErrors);
+                c.commit();
+                return result;
+            } catch (SQLException | IOException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith(SQLSTATE_DATA_EXCEPTION)) {
+                throw new ProductImportException(ERR_PARSE + e.getMessage(), e);
+            }
+            throw new RepositoryException(ERR_IMPORT, e);
+        } catch (IOException e) {
+            throw new RepositoryException(ERR_IMPORT, e);
+        }
+    }
+
+    @Override
+    public long export(OutputStream out, BulkFormat format, Category category) {
+        String filter = category != null ? SQL_CATEGORY_FILTER.formatted(category.name()) : "";
+        String sql = (format == BulkFormat.NDJSON ? SQL_EXPORT_NDJSON : SQL_EXPORT_CSV)
+                .formatted(tableProducts, filter);
+
+        try (Connection c = connectionFactory.getConnection()) {
+            return c.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } catch (SQLException | IOException e) {
+            throw new RepositoryException(ERR_EXPORT, e);
+        }
+    }
+
+    private ImportResult importCsv(Connection c, Reader csv, int maxErrors) throws SQLException, IOException {
+        try (Statement st = c.createStatement()) {
+            st.execute(SQL_CREATE_STAGING);
+        }
+
+        long total = c.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY_CSV, csv);
+
+        try (Statement st = c.createStatement()) {
+            st.executeUpdate(sqlValidate);
+        }
+
+        List<ImportRowError> errors = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(SQL_ERRORS)) {
+            ps.setInt(1, maxErrors);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    errors.add(new ImportRowError(rs.getLong(1), rs.getString(2)));
+                }
+            }
+        }
+
+        long imported;
+        try (Statement st = c.createStatement()) {
+            imported = st.executeUpdate(sqlMerge);
+        }
+        return new ImportResult(total, imported, total - imported, errors);
+    }
+}
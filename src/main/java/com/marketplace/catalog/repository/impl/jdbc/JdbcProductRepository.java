@@ -1,20 +1,26 @@
 package com.marketplace.catalog.repository.impl.jdbc;
 
+import com.marketplace.catalog.exception.ProductVersionConflictException;
 import com.marketplace.catalog.exception.RepositoryException;
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductSearchCriteria;
 import com.marketplace.catalog.repository.ProductRepository;
 import com.marketplace.catalog.db.ConnectionFactory;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * JDBC-реализация репозитория товаров.
  */
 public class JdbcProductRepository implements ProductRepository {
     private static final String TABLE_NAME  = "product";
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final int DEFAULT_BATCH_SIZE = 500;
 
     // ---- Имена колонок -----------------------------------------------------
 
@@ -24,6 +30,7 @@ public class JdbcProductRepository implements ProductRepository {
     private static final String COL_CATEGORY    = "category";
     private static final String COL_PRICE       = "price";
     private static final String COL_DESCRIPTION = "description";
+    private static final String COL_VERSION     = "version";
 
     // ---- SQL-выражения -----------------------------------------------------
 
@@ -31,23 +38,68 @@ public class JdbcProductRepository implements ProductRepository {
     private static final String SQL_INSERT = """
             INSERT INTO %s (%s, %s, %s, %s, %s)
             VALUES (?, ?, ?, ?, ?)
-            RETURNING %s""";
+            RETURNING %s, %s""";
 
+    // Для пакетной вставки id возвращается через getGeneratedKeys
+    private static final String SQL_INSERT_BATCH = """
+            INSERT INTO %s (%s, %s, %s, %s, %s)
+            VALUES (?, ?, ?, ?, ?)""";
+
+    // Условное обновление: ожидаемая версия NULL означает «без проверки»
     private static final String SQL_UPDATE = """
-            UPDATE %s
-            SET %s = ?, %s = ?, %s = ?, %s = ?, %s = ?
-            WHERE %s = ?""";
+            UPDATE %1$s
+            SET %2$s = ?, %3$s = ?, %4$s = ?, %5$s = ?, %6$s = ?, %8$s = %8$s + 1
+            WHERE %7$s = ? AND %8$s = COALESCE(?, %8$s)""";
+
+    // Старая версия читается с блокировкой строки в том же операторе, что и обновление.
+    // Строка old без строки upd означает, что товар есть, но его версия уже другая.
+    private static final String SQL_UPDATE_RETURNING = """
+            WITH old AS (
+                SELECT %1$s, %2$s, %3$s, %4$s, %5$s, %6$s, %8$s
+                FROM %7$s
+                WHERE %1$s = ?
+                FOR UPDATE
+            ), upd AS (
+                UPDATE %7$s AS p
+                SET %2$s = ?, %3$s = ?, %4$s = ?, %5$s = ?, %6$s = ?, %8$s = p.%8$s + 1
+                FROM old
+                WHERE p.%1$s = old.%1$s AND p.%8$s = COALESCE(?, p.%8$s)
+                RETURNING p.%1$s, p.%2$s, p.%3$s, p.%4$s, p.%5$s, p.%6$s, p.%8$s
+            )
+            SELECT old.%1$s, old.%2$s, old.%3$s, old.%4$s, old.%5$s, old.%6$s, old.%8$s,
+                   upd.%1$s, upd.%2$s, upd.%3$s, upd.%4$s, upd.%5$s, upd.%6$s, upd.%8$s
+            FROM old
+            LEFT JOIN upd ON upd.%1$s = old.%1$s""";
+
+    private static final String SQL_DELETE_RETURNING = """
+            DELETE FROM %7$s
+            WHERE %1$s = ?
+            RETURNING %1$s, %2$s, %3$s, %4$s, %5$s, %6$s, %8$s""";
 
     private static final String SQL_FIND_BY_ID = """
-            SELECT %s, %s, %s, %s, %s, %s
+            SELECT %s, %s, %s, %s, %s, %s, %s
             FROM %s
             WHERE %s = ?""";
 
+    // Один параметр-массив вместо IN (?, ?, ...): текст запроса не зависит от числа id
+    private static final String SQL_FIND_BY_IDS = """
+            SELECT %s, %s, %s, %s, %s, %s, %s
+            FROM %s
+            WHERE %s = ANY(?)
+            ORDER BY %s""";
+
     private static final String SQL_FIND_ALL = """
-            SELECT %s, %s, %s, %s, %s, %s
+            SELECT %s, %s, %s, %s, %s, %s, %s
             FROM %s
             ORDER BY %s""";
 
+    private static final String SQL_SEARCH = """
+            SELECT %s, %s, %s, %s, %s, %s, %s
+            FROM %s""";
+
+    private static final String SQL_PAGE_AFTER_ID = "%s > ?";
+    private static final String SQL_PAGE_ORDER    = " ORDER BY %s LIMIT ?";
+
     private static final String SQL_DELETE_BY_ID =
             "DELETE FROM %s WHERE %s = ?";
 
@@ -60,40 +112,96 @@ public class JdbcProductRepository implements ProductRepository {
     private static final String ERR_DELETE = "Delete product failed";
     private final ConnectionFactory connectionFactory;
     private final String tableProducts;
+    private final int fetchSize;
+    private final int batchSize;
     private final String sqlInsert;
+    private final String sqlInsertBatch;
     private final String sqlUpdate;
+    private final String sqlUpdateReturning;
+    private final String sqlDeleteReturning;
     private final String sqlFindById;
+    private final String sqlFindByIds;
     private final String sqlFindAll;
+    private final String sqlSearch;
+    private final String sqlPageAfterId;
+    private final String sqlPageOrder;
     private final String sqlDeleteById;
     private final String sqlCount;
 
     public JdbcProductRepository(ConnectionFactory connectionFactory, String schema) {
+        this(connectionFactory, schema, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param fetchSize сколько строк драйвер получает за одно обращение к курсору в {@link #forEach}
+     */
+    public JdbcProductRepository(ConnectionFactory connectionFactory, String schema, int fetchSize) {
+        this(connectionFactory, schema, fetchSize, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize сколько строк отправляется одним JDBC-пакетом в {@link #saveAll}
+     */
+    public JdbcProductRepository(ConnectionFactory connectionFactory, String schema,
+                                 int fetchSize, int batchSize) {
         this.connectionFactory = connectionFactory;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
         this.tableProducts = schema + "." + TABLE_NAME;
         this.sqlInsert = SQL_INSERT.formatted(
                 tableProducts,
                 COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION,
-                COL_ID
+                COL_ID, COL_VERSION
+        );
+
+        this.sqlInsertBatch = SQL_INSERT_BATCH.formatted(
+                tableProducts,
+                COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION
         );
 
         this.sqlUpdate = SQL_UPDATE.formatted(
                 tableProducts,
                 COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION,
-                COL_ID
+                COL_ID, COL_VERSION
         );
 
-        this.sqlFindById = SQL_FIND_BY_ID.formatted(
+        this.sqlUpdateReturning = SQL_UPDATE_RETURNING.formatted(
                 COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION,
+                tableProducts, COL_VERSION
+        );
+
+        this.sqlDeleteReturning = SQL_DELETE_RETURNING.formatted(
+                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION,
+                tableProducts, COL_VERSION
+        );
+
+        this.sqlFindById = SQL_FIND_BY_ID.formatted(
+                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION, COL_VERSION,
                 tableProducts,
                 COL_ID
         );
 
+        this.sqlFindByIds = SQL_FIND_BY_IDS.formatted(
+                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION, COL_VERSION,
+                tableProducts,
+                COL_ID,
+                COL_ID
+        );
+
         this.sqlFindAll = SQL_FIND_ALL.formatted(
-                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION,
+                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION, COL_VERSION,
                 tableProducts,
                 COL_ID
         );
 
+        this.sqlSearch = SQL_SEARCH.formatted(
+                COL_ID, COL_NAME, COL_BRAND, COL_CATEGORY, COL_PRICE, COL_DESCRIPTION, COL_VERSION,
+                tableProducts
+        );
+
+        this.sqlPageAfterId = SQL_PAGE_AFTER_ID.formatted(COL_ID);
+        this.sqlPageOrder = SQL_PAGE_ORDER.formatted(COL_ID);
+
         this.sqlDeleteById = SQL_DELETE_BY_ID.formatted(
                 tableProducts, COL_ID
         );
@@ -110,6 +218,123 @@ public class JdbcProductRepository implements ProductRepository {
         }
     }
 
+    /**
+     * Пакетное сохранение: новые товары вставляются, существующие обновляются
+     * JDBC-пакетами по {@code batchSize} строк в одной транзакции.
+     * Если любая строка не сохранилась (в том числе из-за устаревшей версии),
+     * откатывается весь набор.
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> products) {
+        List<Product> toInsert = new ArrayList<>();
+        List<Product> toUpdate = new ArrayList<>();
+        for (Product p : products) {
+            (p.getId() == null ? toInsert : toUpdate).add(p);
+        }
+
+        try (Connection c = connectionFactory.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                insertBatches(c, toInsert);
+                updateBatches(c, toUpdate);
+                c.commit();
+                toUpdate.forEach(JdbcProductRepository::advanceVersion);
+            } catch (SQLException | RuntimeException e) {
+                // Сбой отката не должен скрыть исходную причину и оставить товарам
+                // id, которые так и не были зафиксированы
+                try {
+                    c.rollback();
+                } catch (SQLException | RuntimeException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                toInsert.forEach(p -> {
+                    p.setId(null);
+                    p.setVersion(null);
+                });
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_INSERT, e);
+        }
+        return List.copyOf(products);
+    }
+
+    private void insertBatches(Connection c, List<Product> products) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = c.prepareStatement(sqlInsertBatch, new String[]{COL_ID, COL_VERSION})) {
+            for (int from = 0; from < products.size(); from += batchSize) {
+                List<Product> chunk = products.subList(from, Math.min(products.size(), from + batchSize));
+                for (Product p : chunk) {
+                    bindFields(ps, p);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                // Ключи приходят в порядке строк пакета
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Product p : chunk) {
+                        if (!keys.next()) {
+                            throw new SQLException("Generated id is missing for batch insert");
+                        }
+                        p.setId(keys.getLong(1));
+                        p.setVersion(keys.getLong(2));
+                    }
+                }
+            }
+        }
+    }
+
+    private void updateBatches(Connection c, List<Product> products) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = c.prepareStatement(sqlUpdate)) {
+            for (int from = 0; from < products.size(); from += batchSize) {
+                List<Product> chunk = products.subList(from, Math.min(products.size(), from + batchSize));
+                for (Product p : chunk) {
+                    bindFields(ps, p);
+                    ps.setLong(6, p.getId());
+                    bindExpectedVersion(ps, 7, p);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    Product p = chunk.get(i);
+                    if (counts[i] == 0 && p.getVersion() != null) {
+                        throw new ProductVersionConflictException(p.getId(), null);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void bindExpectedVersion(PreparedStatement ps, int index, Product p) throws SQLException {
+        if (p.getVersion() != null) {
+            ps.setLong(index, p.getVersion());
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static void advanceVersion(Product p) {
+        if (p.getVersion() != null) {
+            p.setVersion(p.getVersion() + 1);
+        }
+    }
+
+    private static void bindFields(PreparedStatement ps, Product p) throws SQLException {
+        ps.setString(1, p.getName());
+        ps.setString(2, p.getBrand());
+        ps.setString(3, p.getCategory() != null ? p.getCategory().name() : null);
+        ps.setBigDecimal(4, p.getPrice());
+        ps.setString(5, p.getDescription());
+    }
+
     private Product insert(Product p) {
         try (Connection c = connectionFactory.getConnection();
              PreparedStatement ps = c.prepareStatement(sqlInsert)) {
@@ -123,6 +348,7 @@ public class JdbcProductRepository implements ProductRepository {
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     p.setId(rs.getLong(1));
+                    p.setVersion(rs.getLong(2));
                 }
             }
             return p;
@@ -141,14 +367,66 @@ public class JdbcProductRepository implements ProductRepository {
             ps.setBigDecimal(4, p.getPrice());
             ps.setString(5, p.getDescription());
             ps.setLong(6, p.getId());
+            bindExpectedVersion(ps, 7, p);
 
-            ps.executeUpdate();
+            // Ноль строк при заданной версии: товар изменён или удалён другим запросом
+            if (ps.executeUpdate() == 0 && p.getVersion() != null) {
+                throw new ProductVersionConflictException(p.getId(), null);
+            }
+            advanceVersion(p);
             return p;
         } catch (SQLException e) {
             throw new RepositoryException(ERR_UPDATE, e);
         }
     }
 
+    /**
+     * Обновление одной командой: отсутствие строки видно по пустому результату,
+     * а прежняя версия возвращается вместе с новой. Ожидаемая версия проверяется
+     * в том же операторе, без отдельного чтения перед записью.
+     */
+    @Override
+    public Optional<ProductChange> updateReturning(Product p) {
+        try (Connection c = connectionFactory.getConnection();
+             PreparedStatement ps = c.prepareStatement(sqlUpdateReturning)) {
+
+            ps.setLong(1, p.getId());
+            ps.setString(2, p.getName());
+            ps.setString(3, p.getBrand());
+            ps.setString(4, p.getCategory() != null ? p.getCategory().name() : null);
+            ps.setBigDecimal(5, p.getPrice());
+            ps.setString(6, p.getDescription());
+            bindExpectedVersion(ps, 7, p);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                Product before = mapRow(rs, 1);
+                if (rs.getObject(8) == null) {
+                    throw new ProductVersionConflictException(p.getId(), before.getVersion());
+                }
+                return Optional.of(new ProductChange(before, mapRow(rs, 8)));
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_UPDATE, e);
+        }
+    }
+
+    @Override
+    public Optional<Product> deleteReturning(Long id) {
+        try (Connection c = connectionFactory.getConnection();
+             PreparedStatement ps = c.prepareStatement(sqlDeleteReturning)) {
+
+            ps.setLong(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(mapRow(rs, 1)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_DELETE, e);
+        }
+    }
+
     @Override
     public Optional<Product> findById(Long id) {
         try (Connection c = connectionFactory.getConnection();
@@ -166,6 +444,35 @@ public class JdbcProductRepository implements ProductRepository {
         }
     }
 
+    /**
+     * Все товары одним запросом {@code WHERE id = ANY(?)} с JDBC-массивом {@code bigint[]}.
+     */
+    @Override
+    public List<Product> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (Connection c = connectionFactory.getConnection();
+             PreparedStatement ps = c.prepareStatement(sqlFindByIds)) {
+
+            Array array = c.createArrayOf("bigint", ids.toArray());
+            try {
+                ps.setArray(1, array);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Product> result = new ArrayList<>(ids.size());
+                    while (rs.next()) {
+                        result.add(mapRow(rs));
+                    }
+                    return result;
+                }
+            } finally {
+                array.free();
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_QUERY, e);
+        }
+    }
+
     @Override
     public List<Product> findAll() {
         try (Connection c = connectionFactory.getConnection();
@@ -182,6 +489,90 @@ public class JdbcProductRepository implements ProductRepository {
         }
     }
 
+    /**
+     * Потоковое чтение каталога. Драйвер PostgreSQL использует курсор на стороне сервера
+     * только при выключенном autocommit и ненулевом fetchSize, поэтому чтение идёт
+     * в транзакции и в памяти одновременно находится не больше {@code fetchSize} строк.
+     */
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        try (Connection c = connectionFactory.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sqlFindAll)) {
+                ps.setFetchSize(fetchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapRow(rs));
+                    }
+                }
+                c.commit();
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_QUERY, e);
+        }
+    }
+
+    /**
+     * Поиск с фильтрацией на стороне PostgreSQL: из БД уходят только подходящие строки.
+     */
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria) {
+        ProductSearchQuery query = ProductSearchQuery.of(criteria);
+        String sql = sqlSearch + query.where() + query.orderBy();
+
+        try (Connection c = connectionFactory.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            query.bind(ps, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Product> result = new ArrayList<>();
+                while (rs.next()) {
+                    result.add(mapRow(rs));
+                }
+                return result;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_QUERY, e);
+        }
+    }
+
+    /**
+     * Keyset-пагинация {@code WHERE ... AND id > ? ORDER BY id LIMIT ?}:
+     * PostgreSQL продолжает чтение по первичному ключу с нужного места.
+     */
+    @Override
+    public List<Product> findPage(ProductSearchCriteria criteria, long afterId, int limit) {
+        ProductSearchQuery query = ProductSearchQuery.of(criteria);
+        String where = query.where();
+        String sql = sqlSearch
+                + (where.isEmpty() ? " WHERE " : where + " AND ")
+                + sqlPageAfterId
+                + sqlPageOrder;
+
+        try (Connection c = connectionFactory.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            int index = query.bindWhere(ps, 1);
+            ps.setLong(index++, afterId);
+            ps.setInt(index, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Product> result = new ArrayList<>();
+                while (rs.next()) {
+                    result.add(mapRow(rs));
+                }
+                return result;
+            }
+        } catch (SQLException e) {
+            throw new RepositoryException(ERR_QUERY, e);
+        }
+    }
+
     @Override
     public void deleteById(Long id) {
         try (Connection c = connectionFactory.getConnection();
@@ -218,6 +609,25 @@ public class JdbcProductRepository implements ProductRepository {
             category = Category.valueOf(categoryStr);
         }
 
-        return new Product(id, name, brand, category, price, description);
+        Product product = new Product(id, name, brand, category, price, description);
+        product.setVersion(rs.getLong(COL_VERSION));
+        return product;
+    }
+
+    /**
+     * Читает товар из семи колонок, начиная с {@code first}, в порядке
+     * id, name, brand, category, price, description, version.
+     */
+    private Product mapRow(ResultSet rs, int first) throws SQLException {
+        String categoryStr = rs.getString(first + 3);
+        Product product = new Product(
+                rs.getLong(first),
+                rs.getString(first + 1),
+                rs.getString(first + 2),
+                categoryStr != null ? Category.valueOf(categoryStr) : null,
+                rs.getBigDecimal(first + 4),
+                rs.getString(first + 5));
+        product.setVersion(rs.getLong(first + 6));
+        return product;
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.marketplace.catalog.repository.impl.jdbc;
+
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.model.TextSearchMode;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Динамические условие WHERE и порядок сортировки для поиска товаров
+ * по {@link ProductSearchCriteria}. Значения фильтров передаются только через параметры
+ * PreparedStatement.
+ * <p>
+ * В режиме {@link TextSearchMode#FULLTEXT} текст ищется по сгенерированной колонке
+ * {@code search_vector} (GIN-индекс) через {@code websearch_to_tsquery}, а результат
+ * упорядочивается по {@code ts_rank}.
+ */
+public final class ProductSearchQuery {
+
+    private static final String WHERE = " WHERE ";
+    private static final String AND   = " AND ";
+
+    private static final String COND_CATEGORY  = "category = ?";
+    private static final String COND_BRAND     = "lower(trim(brand)) = ?";
+    private static final String COND_MIN_PRICE = "price >= ?";
+    private static final String COND_MAX_PRICE = "price <= ?";
+    private static final String COND_TEXT      =
+            "(lower(name) LIKE ? ESCAPE '\\' OR lower(description) LIKE ? ESCAPE '\\')";
+    private static final String COND_FULLTEXT  =
+            "search_vector @@ websearch_to_tsquery('simple', ?)";
+
+    private static final String ORDER_BY_ID   = " ORDER BY id";
+    private static final String ORDER_BY_RANK =
+            " ORDER BY ts_rank(search_vector, websearch_to_tsquery('simple', ?)) DESC, id";
+
+    private final String where;
+    private final String orderBy;
+    private final List<Object> whereParams;
+    private final List<Object> orderByParams;
+
+    private ProductSearchQuery(String where, String orderBy,
+                               List<Object> whereParams, List<Object> orderByParams) {
+        this.where = where;
+        this.orderBy = orderBy;
+        this.whereParams = whereParams;
+        this.orderByParams = orderByParams;
+    }
+
+    public static ProductSearchQuery of(ProductSearchCriteria criteria) {
+        StringJoiner conditions = new StringJoiner(AND, WHERE, "").setEmptyValue("");
+        List<Object> params = new ArrayList<>();
+        List<Object> orderByParams = new ArrayList<>();
+
+        if (criteria.category() != null) {
+            conditions.add(COND_CATEGORY);
+            params.add(criteria.category().name());
+        }
+        if (criteria.brand() != null) {
+            conditions.add(COND_BRAND);
+            params.add(criteria.brand());
+        }
+        if (criteria.minPrice() != null) {
+            conditions.add(COND_MIN_PRICE);
+            params.add(criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            conditions.add(COND_MAX_PRICE);
+            params.add(criteria.maxPrice());
+        }
+        String orderBy = ORDER_BY_ID;
+        if (criteria.text() != null && criteria.textMode() == TextSearchMode.FULLTEXT) {
+            conditions.add(COND_FULLTEXT);
+            params.add(criteria.text());
+            orderBy = ORDER_BY_RANK;
+            orderByParams.add(criteria.text());
+        } else if (criteria.text() != null) {
+            String pattern = "%" + escapeLike(criteria.text()) + "%";
+            conditions.add(COND_TEXT);
+            params.add(pattern);
+            params.add(pattern);
+        }
+        return new ProductSearchQuery(conditions.toString(), orderBy, params, orderByParams);
+    }
+
+    /**
+     * @return условие вида {@code " WHERE a = ? AND b = ?"} или пустая строка, если фильтров нет
+     */
+    public String where() {
+        return where;
+    }
+
+    /**
+     * @return выражение ORDER BY: по id либо по релевантности для полнотекстового поиска
+     */
+    public String orderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Подставляет значения фильтров и сортировки (запрос {@code where() + orderBy()}),
+     * начиная с позиции {@code firstIndex}.
+     *
+     * @return индекс следующего свободного параметра
+     */
+    public int bind(PreparedStatement ps, int firstIndex) throws SQLException {
+        return bind(ps, bindWhere(ps, firstIndex), orderByParams);
+    }
+
+    /**
+     * Подставляет только значения фильтров — для запросов со своей сортировкой.
+     *
+     * @return индекс следующего свободного параметра
+     */
+    public int bindWhere(PreparedStatement ps, int firstIndex) throws SQLException {
+        return bind(ps, firstIndex, whereParams);
+    }
+
+    private static int bind(PreparedStatement ps, int firstIndex, List<Object> params) throws SQLException {
+        int i = firstIndex;
+        for (Object param : params) {
+            if (param instanceof BigDecimal d) {
+                ps.setBigDecimal(i++, d);
+            } else {
+                ps.setString(i++, (String) param);
+            }
+        }
+        return i;
+    }
+
+    /** Экранирует спецсимволы LIKE, чтобы текст искался буквально. */
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
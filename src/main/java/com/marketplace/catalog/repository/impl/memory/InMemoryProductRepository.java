@@ -0,0 +1,228 @@
+package com.marketplace.catalog.repository.impl.memory;
+
+import com.marketplace.catalog.exception.ProductVersionConflictException;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Репозиторий товаров в памяти процесса — для запуска без БД и нагрузочных тестов сервисного слоя.
+ * <p>
+ * Товары лежат в {@link ConcurrentHashMap}, id выдаёт {@link AtomicLong}. Изменение одного
+ * товара атомарно ({@code compute}) и проверяет версию так же, как условный UPDATE в БД.
+ * Хранятся и возвращаются копии, поэтому вызывающий не может изменить данные в обход репозитория.
+ * <p>
+ * Снимки каталога ({@link #findAll()}, поиск, постраничная выборка) строятся параллельно под общей
+ * (read) блокировкой, а изменения выполняются по одному под эксклюзивной: снимок согласован и не
+ * содержит «половины» пакетного {@link #saveAll}. Чтение — основная нагрузка каталога, поэтому
+ * сериализуются записи, а не выгрузки. Чтение по id блокировок не берёт.
+ * <p>
+ * Полнотекстовый режим поиска здесь работает как поиск подстроки.
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+    private final ConcurrentHashMap<Long, Product> products = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Общая блокировка снимков: выгрузки не мешают друг другу. */
+    private final Lock snapshotLock = lock.readLock();
+    /** Эксклюзивная блокировка одиночных и пакетных изменений. */
+    private final Lock mutationLock = lock.writeLock();
+
+    @Override
+    public Product save(Product product) {
+        mutationLock.lock();
+        try {
+            return saveUnlocked(product);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    /**
+     * Сохраняет набор атомарно: версии всех обновляемых товаров проверяются до первого
+     * изменения, и при конфликте не сохраняется ни один товар.
+     */
+    @Override
+    public List<Product> saveAll(Collection<Product> batch) {
+        mutationLock.lock();
+        try {
+            for (Product p : batch) {
+                if (p.getId() != null && p.getVersion() != null) {
+                    Product current = products.get(p.getId());
+                    if (current == null || !p.getVersion().equals(current.getVersion())) {
+                        throw new ProductVersionConflictException(
+                                p.getId(), current != null ? current.getVersion() : null);
+                    }
+                }
+            }
+            for (Product p : batch) {
+                saveUnlocked(p);
+            }
+            return List.copyOf(batch);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    private Product saveUnlocked(Product p) {
+        if (p.getId() == null) {
+            Product stored = p.copy();
+            stored.setId(sequence.incrementAndGet());
+            stored.setVersion(0L);
+            products.put(stored.getId(), stored);
+            p.setId(stored.getId());
+            p.setVersion(0L);
+            return p;
+        }
+        ProductChange change = replace(p);
+        if (change != null) {
+            p.setVersion(change.after().getVersion());
+        } else if (p.getVersion() != null) {
+            // Как и в БД: при заданной версии отсутствие товара — конфликт
+            throw new ProductVersionConflictException(p.getId(), null);
+        }
+        return p;
+    }
+
+    @Override
+    public Optional<ProductChange> updateReturning(Product product) {
+        mutationLock.lock();
+        try {
+            ProductChange change = replace(product);
+            if (change == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new ProductChange(change.before().copy(), change.after().copy()));
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    /**
+     * Атомарно заменяет товар с проверкой версии.
+     *
+     * @return прежняя и новая сохранённые версии или null, если товара нет
+     */
+    private ProductChange replace(Product p) {
+        ProductChange[] change = new ProductChange[1];
+        products.computeIfPresent(p.getId(), (id, current) -> {
+            if (p.getVersion() != null && !p.getVersion().equals(current.getVersion())) {
+                throw new ProductVersionConflictException(id, current.getVersion());
+            }
+            Product next = p.copy();
+            next.setVersion(current.getVersion() + 1);
+            change[0] = new ProductChange(current, next);
+            return next;
+        });
+        return change[0];
+    }
+
+    @Override
+    public Optional<Product> deleteReturning(Long id) {
+        mutationLock.lock();
+        try {
+            return Optional.ofNullable(products.remove(id)).map(Product::copy);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Product> findById(Long id) {
+        return Optional.ofNullable(products.get(id)).map(Product::copy);
+    }
+
+    @Override
+    public List<Product> findAllByIds(Collection<Long> ids) {
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product p = products.get(id);
+            if (p != null) {
+                result.add(p.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return copies(snapshot(p -> true));
+    }
+
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        for (Product p : snapshot(p -> true)) {
+            action.accept(p.copy());
+        }
+    }
+
+    @Override
+    public List<Product> search(ProductSearchCriteria criteria) {
+        return copies(snapshot(criteria::matches));
+    }
+
+    @Override
+    public List<Product> findPage(ProductSearchCriteria criteria, long afterId, int limit) {
+        List<Product> matching = snapshot(p -> p.getId() > afterId && criteria.matches(p));
+        return copies(matching.subList(0, Math.min(limit, matching.size())));
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        mutationLock.lock();
+        try {
+            products.remove(id);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return products.size();
+    }
+
+    /**
+     * Подходящие товары из согласованного снимка в порядке возрастания id.
+     * Хранимые объекты не изменяются (товар заменяется целиком), поэтому
+     * после снятия блокировки их можно сортировать и копировать.
+     */
+    private List<Product> snapshot(Predicate<Product> filter) {
+        List<Product> snapshot = new ArrayList<>();
+        snapshotLock.lock();
+        try {
+            for (Product p : products.values()) {
+                if (filter.test(p)) {
+                    snapshot.add(p);
+                }
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+        snapshot.sort(BY_ID);
+        return snapshot;
+    }
+
+    private static List<Product> copies(List<Product> stored) {
+        return stored.stream()
+                .map(Product::copy)
+                .toList();
+    }
+}
@@ -0,0 +1,39 @@
+package com.marketplace.catalog.repository.impl.memory;
+
+import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.repository.UserRepository;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Репозиторий пользователей в памяти процесса (режим {@code repository.type=memory}).
+ */
+public class InMemoryUserRepository implements UserRepository {
+
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        User user = users.get(login);
+        return user == null
+                ? Optional.empty()
+                : Optional.of(new User(user.getId(), user.getLogin(), user.getPassword(), user.getRole()));
+    }
+
+    @Override
+    public User save(User user) {
+        if (user.getId() != null) {
+            throw new UnsupportedOperationException("User update is not supported yet");
+        }
+        long id = sequence.incrementAndGet();
+        User stored = new User(id, user.getLogin(), user.getPassword(), user.getRole());
+        if (users.putIfAbsent(user.getLogin(), stored) != null) {
+            throw new IllegalArgumentException("User already exists: " + user.getLogin());
+        }
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,22 @@
+package com.marketplace.catalog.service;
+
+/**
+ * Распределение длительностей одной операции: перцентили и максимум в миллисекундах.
+ *
+ * @param count       число учтённых замеров (после затухания — взвешенное, см. {@code LatencyHistogram})
+ * @param totalCount  число замеров с момента старта, без затухания — монотонный счётчик
+ * @param totalMillis сумма длительностей всех замеров с момента старта
+ */
+public record LatencySummary(
+        long count,
+        double p50Millis,
+        double p90Millis,
+        double p99Millis,
+        double p999Millis,
+        double maxMillis,
+        long totalCount,
+        double totalMillis
+) {
+    /** Распределение без замеров. */
+    public static final LatencySummary EMPTY = new LatencySummary(0, 0.0, 0.0, 0.0, 0.0, 0.0, 0, 0.0);
+}
@@ -4,9 +4,29 @@ package com.marketplace.catalog.service;
  * Контракт сервиса метрик каталога.
  */
 public interface Metrics {
-    void recordCreate();
-    void recordUpdate();
-    void recordDelete();
+    /**
+     * Регистрирует создание товара.
+     * @param durationNanos длительность операции в наносекундах
+     */
+    void recordCreate(long durationNanos);
+
+    /**
+     * Регистрирует обновление товара.
+     * @param durationNanos длительность операции в наносекундах
+     */
+    void recordUpdate(long durationNanos);
+
+    /**
+     * Регистрирует удаление товара.
+     * @param durationNanos длительность операции в наносекундах
+     */
+    void recordDelete(long durationNanos);
+
+    /**
+     * Регистрирует попытку входа (успешную или нет).
+     * @param durationNanos длительность проверки в наносекундах
+     */
+    void recordLogin(long durationNanos);
 
     /**
      * Регистрирует поисковый запрос.
@@ -15,12 +35,78 @@ public interface Metrics {
      */
     void recordSearch(long durationNanos, boolean fromCache);
 
+    /**
+     * Регистрирует поисковый промах, который не пошёл в репозиторий,
+     * а дождался результата такого же одновременного запроса.
+     */
+    void recordCoalescedSearch();
+
+    /**
+     * Регистрирует выборку товара по id.
+     * @param fromCache true, если товар взят из кэша товаров
+     */
+    void recordByIdLookup(boolean fromCache);
+
+    /**
+     * Фиксирует текущее состояние кэша поиска.
+     * @param entries        число записей в кэше
+     * @param estimatedBytes оценка занимаемой памяти в байтах
+     * @param evictions      общее число вытесненных записей с момента старта
+     */
+    void recordCacheState(long entries, long estimatedBytes, long evictions);
+
+    /**
+     * Фиксирует размер триграммного индекса текстового поиска.
+     * @param trigrams       число различных триграмм
+     * @param postingEntries суммарная длина posting-листов
+     */
+    void recordTextIndexState(long trigrams, long postingEntries);
+
+    /**
+     * Регистрирует выгрузку каталога.
+     * @param rows          число выгруженных товаров
+     * @param bytes         объём ответа в байтах
+     * @param durationNanos длительность выгрузки в наносекундах
+     */
+    void recordExport(long rows, long bytes, long durationNanos);
+
+    /**
+     * Все метрики одним объектом: читается один раз и сериализуется целиком,
+     * без отдельных обращений к каждому счётчику.
+     */
+    MetricsSnapshot snapshot();
+
     long getCreateCount();
     long getUpdateCount();
     long getDeleteCount();
 
     long getSearchCount();
     long getCacheHitCount();
+    long getCoalescedSearchCount();
+
+    long getByIdHitCount();
+    long getByIdMissCount();
+
+    long getCacheEntries();
+    long getCacheEstimatedBytes();
+    long getCacheEvictionCount();
+
+    long getTextIndexTrigrams();
+    long getTextIndexPostings();
+
+    long getExportCount();
+    long getExportedRows();
+    long getExportedBytes();
+
+    /**
+     * Средняя скорость выгрузки в строках в секунду (по всем выгрузкам).
+     */
+    double getExportRowsPerSecond();
+
+    /**
+     * Средняя скорость выгрузки в байтах в секунду (по всем выгрузкам).
+     */
+    double getExportBytesPerSecond();
 
     /**
      * Среднее время поиска в миллисекундах.
@@ -0,0 +1,71 @@
+package com.marketplace.catalog.service;
+
+import lombok.Builder;
+
+/**
+ * Значения всех метрик каталога, прочитанные одним вызовом {@link Metrics#snapshot()}.
+ * <p>
+ * Производные величины (средние, доли, скорости) вычислены из тех же прочитанных
+ * счётчиков, поэтому внутри снимка они согласованы между собой.
+ * <p>
+ * Распределения длительностей и скорости за окна, не заданные при сборке, считаются пустыми.
+ */
+@Builder
+public record MetricsSnapshot(
+        long createCount,
+        long updateCount,
+        long deleteCount,
+        long searchCount,
+        long cacheHitCount,
+        long coalescedSearchCount,
+        long byIdHitCount,
+        long byIdMissCount,
+        double averageSearchTimeMillis,
+        double cacheHitRatio,
+        long cacheEntries,
+        long cacheEstimatedBytes,
+        long cacheEvictionCount,
+        long textIndexTrigrams,
+        long textIndexPostings,
+        long exportCount,
+        long exportedRows,
+        long exportedBytes,
+        double exportRowsPerSecond,
+        double exportBytesPerSecond,
+        LatencySummary searchHitLatency,
+        LatencySummary searchMissLatency,
+        LatencySummary createLatency,
+        LatencySummary updateLatency,
+        LatencySummary deleteLatency,
+        LatencySummary loginLatency,
+        WindowRates searchRate,
+        WindowRates cacheHitRate,
+        WindowRates recentCacheHitRatio,
+        WindowRates createRate,
+        WindowRates updateRate,
+        WindowRates deleteRate
+) {
+    public MetricsSnapshot {
+        searchHitLatency  = orEmpty(searchHitLatency);
+        searchMissLatency = orEmpty(searchMissLatency);
+        createLatency     = orEmpty(createLatency);
+        updateLatency     = orEmpty(updateLatency);
+        deleteLatency     = orEmpty(deleteLatency);
+        loginLatency      = orEmpty(loginLatency);
+
+        searchRate          = orZero(searchRate);
+        cacheHitRate        = orZero(cacheHitRate);
+        recentCacheHitRatio = orZero(recentCacheHitRatio);
+        createRate          = orZero(createRate);
+        updateRate          = orZero(updateRate);
+        deleteRate          = orZero(deleteRate);
+    }
+
+    private static LatencySummary orEmpty(LatencySummary summary) {
+        return summary != null ? summary : LatencySummary.EMPTY;
+    }
+
+    private static WindowRates orZero(WindowRates rates) {
+        return rates != null ? rates : WindowRates.ZERO;
+    }
+}
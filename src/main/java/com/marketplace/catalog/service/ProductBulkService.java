@@ -0,0 +1,50 @@
+package com.marketplace.catalog.service;
+
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.Product;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.function.Function;
+
+/**
+ * Контракт сервиса массовой загрузки товаров.
+ */
+public interface ProductBulkService {
+
+    /**
+     * Импортирует товары из CSV ({@code name,brand,category,price,description}, первая строка — заголовок).
+     *
+     * @param csv      содержимое файла
+     * @param username пользователь, выполняющий импорт
+     * @return итог импорта с ошибками по записям
+     * @throws UnsupportedOperationException если хранилище не поддерживает COPY
+     */
+    ImportResult importCsv(Reader csv, String username);
+
+    /**
+     * Импортирует товары из NDJSON (один JSON-объект на строку) потоково:
+     * разбор и проверка строк идут параллельно, корректные товары сохраняются пакетами.
+     *
+     * @param ndjson   содержимое файла в UTF-8
+     * @param decoder  разбор и проверка формата строки; для некорректной строки
+     *                 выбрасывает {@link com.marketplace.catalog.exception.ProductValidationException}
+     * @param username пользователь, выполняющий импорт
+     * @return итог импорта с ошибками по строкам и длительностью
+     */
+    ImportResult importNdjson(InputStream ndjson, Function<String, Product> decoder, String username);
+
+    /**
+     * Выгружает каталог в поток и фиксирует скорость выгрузки в метриках.
+     *
+     * @param out      поток ответа
+     * @param format   формат выгрузки
+     * @param category фильтр по категории или null
+     * @return число выгруженных товаров
+     * @throws UnsupportedOperationException если хранилище не поддерживает COPY
+     */
+    long export(OutputStream out, BulkFormat format, Category category);
+}
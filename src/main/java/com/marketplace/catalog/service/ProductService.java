@@ -2,8 +2,11 @@ package com.marketplace.catalog.service;
 
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductPage;
+import com.marketplace.catalog.model.ProductSearchCriteria;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 
 
 /**
@@ -13,17 +16,54 @@ public interface ProductService {
 
     Product createProduct(Product product, String username);
 
+    /**
+     * Обновляет товар. Если у {@code updated} задана версия, изменение применяется
+     * только к ней, иначе выбрасывается
+     * {@link com.marketplace.catalog.exception.ProductVersionConflictException}.
+     *
+     * @return обновлённый товар с новой версией или пустой Optional, если товара нет
+     */
     Optional<Product> updateProduct(Long id, Product updated, String username);
 
     boolean deleteProduct(Long id, String username);
 
     List<Product> findAll();
 
+    /**
+     * Товар по id: из кэша товаров, при промахе — из хранилища.
+     */
+    Optional<Product> findById(Long id);
+
+    /**
+     * Товары с указанными id одним запросом к хранилищу, в порядке переданных id.
+     * Отсутствующие id пропускаются, повторы возвращаются один раз.
+     */
+    List<Product> findByIds(Collection<Long> ids);
+
+    /**
+     * Передаёт все товары обработчику по одному, не загружая каталог в память целиком.
+     */
+    void forEachProduct(Consumer<? super Product> action);
+
     long count();
 
+    /**
+     * Сбрасывает кэш поиска и индекс после изменения каталога в обход сервиса
+     * (например, массового импорта).
+     */
+    void refresh();
+
     List<Product> search(Category category,
                          String brand,
                          BigDecimal minPrice,
                          BigDecimal maxPrice,
                          String text);
+
+    List<Product> search(ProductSearchCriteria criteria);
+
+    /**
+     * Страница товаров после {@code afterId} (keyset-пагинация).
+     * Пустые критерии — весь каталог.
+     */
+    ProductPage findPage(ProductSearchCriteria criteria, long afterId, int limit);
 }
@@ -0,0 +1,15 @@
+package com.marketplace.catalog.service;
+
+/**
+ * Значение метрики за последние 1, 5 и 15 минут: для счётчиков — событий в секунду,
+ * для доли попаданий — отношение за окно.
+ * <p>
+ * Пока приложение работает меньше окна, значение считается за фактическое время работы.
+ */
+public record WindowRates(
+        double oneMinute,
+        double fiveMinutes,
+        double fifteenMinutes
+) {
+    public static final WindowRates ZERO = new WindowRates(0.0, 0.0, 0.0);
+}
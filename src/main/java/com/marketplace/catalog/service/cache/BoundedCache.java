@@ -0,0 +1,245 @@
+package com.marketplace.catalog.service.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Потокобезопасный ограниченный кэш с вытеснением LRU и TTL записей.
+ * <p>
+ * Ключи распределяются по сегментам, у каждого сегмента свой замок и своя
+ * LRU-очередь, поэтому потоки, работающие с разными ключами, почти не мешают
+ * друг другу. Ограничения по числу записей и по весу (оценке занимаемой памяти)
+ * делятся между сегментами поровну, т.е. LRU соблюдается в пределах сегмента.
+ * <p>
+ * Для защиты от записи устаревших данных используется эпоха: перед вычислением
+ * значения вызывающий запоминает {@link #epoch()}, а {@link #put(Object, Object, long)}
+ * не сохранит значение, если за это время кэш был инвалидирован.
+ *
+ * @param <K> тип ключа (должен корректно реализовывать equals/hashCode)
+ * @param <V> тип значения
+ */
+public final class BoundedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_ENTRIES_PER_SEGMENT = 8;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int maxEntriesPerSegment;
+    private final long maxWeightPerSegment;
+    private final long ttlNanos;
+    private final ToLongFunction<? super V> weigher;
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxEntries, long maxWeight, Duration ttl, ToLongFunction<? super V> weigher) {
+        this(maxEntries, maxWeight, ttl, weigher, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    BoundedCache(int maxEntries, long maxWeight, Duration ttl,
+                 ToLongFunction<? super V> weigher, LongSupplier nanoClock) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        int segmentCount = segmentCount(maxEntries);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+        this.segmentMask = segmentCount - 1;
+        this.maxEntriesPerSegment = Math.max(1, maxEntries / segmentCount);
+        this.maxWeightPerSegment = Math.max(1, maxWeight / segmentCount);
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+    }
+
+    /** Число сегментов — степень двойки, не больше {@link #MAX_SEGMENTS}. */
+    private static int segmentCount(int maxEntries) {
+        int count = 1;
+        while (count < MAX_SEGMENTS && (long) count * 2 * MIN_ENTRIES_PER_SEGMENT <= maxEntries) {
+            count *= 2;
+        }
+        return count;
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если записи нет или её TTL истёк.
+     */
+    public V get(K key) {
+        Segment<K, V> seg = segmentFor(key);
+        seg.lock.lock();
+        try {
+            Entry<V> e = seg.map.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (e.expiresAtNanos - nanoClock.getAsLong() <= 0) {
+                seg.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return e.value;
+        } finally {
+            seg.lock.unlock();
+        }
+    }
+
+    /**
+     * Текущая эпоха кэша. Меняется при каждой инвалидации.
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Сохраняет значение, если с момента получения {@code expectedEpoch} кэш не инвалидировали.
+     * При превышении лимитов вытесняет давно не использованные записи.
+     *
+     * @return true, если значение сохранено
+     */
+    public boolean put(K key, V value, long expectedEpoch) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeightPerSegment) {
+            return false;
+        }
+        Segment<K, V> seg = segmentFor(key);
+        seg.lock.lock();
+        try {
+            if (epoch.get() != expectedEpoch) {
+                return false;
+            }
+            seg.remove(key);
+            seg.add(key, new Entry<>(value, weight, nanoClock.getAsLong() + ttlNanos));
+            evictOverflow(seg);
+            return true;
+        } finally {
+            seg.lock.unlock();
+        }
+    }
+
+    /** Вытесняет записи с головы LRU-очереди, пока сегмент не уложится в лимиты. */
+    private void evictOverflow(Segment<K, V> seg) {
+        Iterator<Map.Entry<K, Entry<V>>> it = seg.map.entrySet().iterator();
+        while (it.hasNext() && (seg.map.size() > maxEntriesPerSegment || seg.weight > maxWeightPerSegment)) {
+            Entry<V> eldest = it.next().getValue();
+            it.remove();
+            seg.onRemoved(eldest);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Удаляет все записи и сдвигает эпоху, чтобы незавершённые вычисления не попали в кэш.
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        for (Segment<K, V> seg : segments) {
+            seg.lock.lock();
+            try {
+                seg.map.clear();
+                seg.size = 0;
+                seg.weight = 0;
+            } finally {
+                seg.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Удаляет записи, ключи которых удовлетворяют условию. Остальные записи остаются в кэше.
+     * Эпоха сдвигается, чтобы незавершённые вычисления не записали в кэш устаревший результат.
+     *
+     * @return число удалённых записей
+     */
+    public int invalidateIf(Predicate<? super K> condition) {
+        epoch.incrementAndGet();
+        int removed = 0;
+        for (Segment<K, V> seg : segments) {
+            seg.lock.lock();
+            try {
+                Iterator<Map.Entry<K, Entry<V>>> it = seg.map.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<K, Entry<V>> e = it.next();
+                    if (condition.test(e.getKey())) {
+                        it.remove();
+                        seg.onRemoved(e.getValue());
+                        removed++;
+                    }
+                }
+            } finally {
+                seg.lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    /** Текущее число записей. */
+    public long size() {
+        long total = 0;
+        for (Segment<K, V> seg : segments) {
+            total += seg.size;
+        }
+        return total;
+    }
+
+    /** Суммарный вес записей (оценка занимаемой памяти). */
+    public long weight() {
+        long total = 0;
+        for (Segment<K, V> seg : segments) {
+            total += seg.weight;
+        }
+        return total;
+    }
+
+    /** Число записей, вытесненных по лимитам или по TTL, с момента создания. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private record Entry<V>(V value, long weight, long expiresAtNanos) {
+    }
+
+    private static final class Segment<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        /** accessOrder = true: get() переносит запись в хвост, голова — самая старая. */
+        final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        volatile int size;
+        volatile long weight;
+
+        void add(K key, Entry<V> e) {
+            map.put(key, e);
+            size = map.size();
+            weight += e.weight;
+        }
+
+        void remove(K key) {
+            Entry<V> old = map.remove(key);
+            if (old != null) {
+                onRemoved(old);
+            }
+        }
+
+        void onRemoved(Entry<V> e) {
+            size = map.size();
+            weight -= e.weight;
+        }
+    }
+}
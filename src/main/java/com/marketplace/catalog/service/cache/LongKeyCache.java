@@ -0,0 +1,216 @@
+package com.marketplace.catalog.service.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Потокобезопасный ограниченный кэш с ключом {@code long}.
+ * <p>
+ * Открытая адресация с линейным пробированием: ключи лежат в массиве {@code long[]},
+ * значения — в параллельном массиве, поэтому ни поиск, ни вставка не упаковывают ключ
+ * в {@link Long} и не создают узлов. Таблица заполнена не больше чем наполовину,
+ * удаление сдвигает следующие записи цепочки назад, так что «надгробия» не копятся.
+ * <p>
+ * При достижении {@code maxEntries} новая запись вытесняет запись под «стрелкой»,
+ * которая обходит таблицу по кругу: это дешевле LRU и не требует списков доступа.
+ * <p>
+ * Чтение выполняется под оптимистической блокировкой {@link StampedLock} и не мешает
+ * другим читателям; изменения — под эксклюзивной. Эпоха защищает от записи устаревших
+ * данных так же, как в {@link BoundedCache}.
+ *
+ * @param <V> тип значения
+ */
+public final class LongKeyCache<V> {
+
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    private final StampedLock lock = new StampedLock();
+    private final long[] keys;
+    /** null — свободная ячейка. */
+    private final Object[] values;
+    private final int mask;
+    private final int maxEntries;
+
+    private volatile int size;
+    private int clockHand;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+
+    public LongKeyCache(int maxEntries) {
+        if (maxEntries <= 0 || maxEntries > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Cache size must be in 1.." + MAX_ENTRIES);
+        }
+        // Ближайшая степень двойки не меньше 2 * maxEntries
+        int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если записи нет.
+     */
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        V value = find(key);
+        if (!lock.validate(stamp)) {
+            // Во время чтения была запись — повторяем под обычной блокировкой чтения
+            stamp = lock.readLock();
+            try {
+                value = find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Текущая эпоха кэша. Меняется при каждой инвалидации.
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Сохраняет значение, если с момента получения {@code expectedEpoch} кэш не инвалидировали.
+     *
+     * @return true, если значение сохранено
+     */
+    public boolean put(long key, V value, long expectedEpoch) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cache value must not be null");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (epoch.get() != expectedEpoch) {
+                return false;
+            }
+            int i = slot(key);
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            if (size >= maxEntries) {
+                evictOne();
+                // Вытеснение сдвигает цепочки — свободную ячейку ищем заново
+                i = slot(key);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Удаляет запись по ключу и сдвигает эпоху, чтобы незавершённая загрузка
+     * этого ключа не вернула в кэш прежнее значение.
+     */
+    public void invalidate(long key) {
+        long stamp = lock.writeLock();
+        try {
+            epoch.incrementAndGet();
+            int i = slot(key);
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    removeAt(i);
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Удаляет все записи и сдвигает эпоху.
+     */
+    public void invalidateAll() {
+        long stamp = lock.writeLock();
+        try {
+            epoch.incrementAndGet();
+            Arrays.fill(values, null);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Текущее число записей. */
+    public int size() {
+        return size;
+    }
+
+    /** Число записей, вытесненных по лимиту, с момента создания. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V find(long key) {
+        int i = slot(key);
+        // Ограничение числа проб: при оптимистическом чтении таблица может меняться
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                return (V) value;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private void evictOne() {
+        while (values[clockHand] == null) {
+            clockHand = (clockHand + 1) & mask;
+        }
+        removeAt(clockHand);
+        evictions.increment();
+    }
+
+    /**
+     * Удаляет запись и переносит назад следующие записи цепочки, которые
+     * без неё стали бы недостижимы при пробировании от своей начальной ячейки.
+     */
+    private void removeAt(int hole) {
+        values[hole] = null;
+        size--;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                return;
+            }
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                values[j] = null;
+                hole = j;
+            }
+        }
+    }
+
+    /** Начальная ячейка ключа; пакетная видимость — для тестов цепочек пробирования. */
+    int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,16 @@
+package com.marketplace.catalog.service.cache;
+
+import java.time.Duration;
+
+/**
+ * Параметры кэша результатов поиска.
+ *
+ * @param maxEntries     максимальное число закэшированных запросов
+ * @param maxWeightBytes ограничение на оценочный объём памяти, занимаемый результатами
+ * @param ttl            время жизни записи
+ */
+public record SearchCacheSettings(int maxEntries, long maxWeightBytes, Duration ttl) {
+
+    public static final SearchCacheSettings DEFAULT =
+            new SearchCacheSettings(1_000, 64L * 1024 * 1024, Duration.ofMinutes(5));
+}
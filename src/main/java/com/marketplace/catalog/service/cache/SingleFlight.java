@@ -0,0 +1,75 @@
+package com.marketplace.catalog.service.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Объединение одновременных одинаковых вычислений (single-flight).
+ * <p>
+ * Если для ключа уже идёт вычисление, остальные потоки не запускают своё,
+ * а дожидаются результата первого. После завершения ключ освобождается,
+ * и следующий вызов снова выполняет загрузку.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип результата
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Результат вызова {@link #execute(Object, Supplier)}.
+     *
+     * @param value  вычисленное значение
+     * @param shared true, если значение получено из чужого вычисления
+     */
+    public record Outcome<V>(V value, boolean shared) {
+    }
+
+    /**
+     * Выполняет {@code loader} или присоединяется к уже идущему вычислению для того же ключа.
+     * Исключение загрузчика получают все ожидающие потоки.
+     */
+    public Outcome<V> execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            return new Outcome<>(await(running), true);
+        }
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Отвязывает идущие вычисления, ключи которых удовлетворяют условию:
+     * новые вызовы для этих ключей запустят свежую загрузку, а не присоединятся к старой.
+     */
+    public void forgetIf(Predicate<? super K> condition) {
+        inFlight.keySet().removeIf(condition);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.marketplace.catalog.service.impl;
 import com.marketplace.catalog.model.User;
 import com.marketplace.catalog.repository.UserRepository;
 import com.marketplace.catalog.service.AuthService;
+import com.marketplace.catalog.service.Metrics;
 import lombok.Getter;
 
 import java.util.Optional;
@@ -13,15 +14,20 @@ import java.util.Optional;
 @Getter
 public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
+    private final Metrics metrics;
 
-    public AuthServiceImpl (UserRepository userRepository) {
+    public AuthServiceImpl (UserRepository userRepository, Metrics metrics) {
         this.userRepository = userRepository;
+        this.metrics = metrics;
     }
 
     @Override
     public Optional<User> login(String login, String password) {
-        return userRepository.findByLogin(login)
-                .filter(user -> user.getPassword().equals(password));
+        long started = System.nanoTime();
+        Optional<User> user = userRepository.findByLogin(login)
+                .filter(u -> u.getPassword().equals(password));
+        metrics.recordLogin(System.nanoTime() - started);
+        return user;
     }
 
     public void logout(String login) {
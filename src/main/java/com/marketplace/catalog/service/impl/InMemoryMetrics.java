@@ -1,61 +1,356 @@
 package com.marketplace.catalog.service.impl;
 
 import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.MetricsSnapshot;
+import com.marketplace.catalog.service.WindowRates;
+import com.marketplace.catalog.service.metrics.DecaySchedule;
+import com.marketplace.catalog.service.metrics.LatencyHistogram;
+import com.marketplace.catalog.service.metrics.RateWindow;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
  * In-memory реализация сервиса метрик.
- * Потокобезопасна за счёт synchronized.
+ * <p>
+ * Счётчики — {@link LongAdder}: каждый поток увеличивает свою ячейку, поэтому запись
+ * метрик на горячем пути не берёт блокировок и не конкурирует за одну строку кэша
+ * между ядрами. Состояние кэша и индекса публикуется неизменяемыми объектами
+ * через volatile-поля.
+ * <p>
+ * Связанные счётчики увеличиваются и читаются в противоположном порядке (например,
+ * число поисков раньше числа попаданий), поэтому в {@link #snapshot()} доли не превышают 1,
+ * а скорости не завышаются из-за выгрузки, учтённой наполовину.
+ * <p>
+ * Длительности поиска (отдельно для попаданий и промахов кэша), изменений товаров и входа
+ * пишутся в {@link LatencyHistogram}. Раз в {@code latencyDecay} счётчики гистограмм делятся
+ * пополам (при очередном снимке, а не на пути записи), поэтому перцентили описывают
+ * недавний трафик: вклад замера убывает вдвое за каждый интервал.
+ * <p>
+ * Поиски, попадания в кэш и изменения товаров дополнительно считаются по секундам
+ * в {@link RateWindow}: из них получаются текущие скорости и доля попаданий
+ * за последние 1, 5 и 15 минут.
  */
 public class InMemoryMetrics implements Metrics {
 
-    private long createCount;
-    private long updateCount;
-    private long deleteCount;
+    /** Интервал полураспада гистограмм длительностей по умолчанию. */
+    public static final Duration DEFAULT_LATENCY_DECAY = Duration.ofMinutes(1);
+
+    private static final int ONE_MINUTE = 60;
+    private static final int FIVE_MINUTES = 5 * 60;
+    private static final int FIFTEEN_MINUTES = 15 * 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder updateCount = new LongAdder();
+    private final LongAdder deleteCount = new LongAdder();
+
+    private final LongAdder searchCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder coalescedSearchCount = new LongAdder();
+    private final LongAdder totalSearchTimeNanos = new LongAdder();
+
+    private final LongAdder byIdHitCount = new LongAdder();
+    private final LongAdder byIdMissCount = new LongAdder();
+
+    private volatile CacheState cacheState = new CacheState(0, 0, 0);
+    private volatile TextIndexState textIndexState = new TextIndexState(0, 0);
 
-    private long searchCount;
-    private long cacheHitCount;
-    private long totalSearchTimeNanos;
+    private final LongAdder exportCount = new LongAdder();
+    private final LongAdder exportedRows = new LongAdder();
+    private final LongAdder exportedBytes = new LongAdder();
+    private final LongAdder totalExportTimeNanos = new LongAdder();
+
+    private final LatencyHistogram searchHitLatency = new LatencyHistogram();
+    private final LatencyHistogram searchMissLatency = new LatencyHistogram();
+    private final LatencyHistogram createLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+    private final LatencyHistogram deleteLatency = new LatencyHistogram();
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+
+    private final RateWindow searchWindow = new RateWindow(FIFTEEN_MINUTES);
+    private final RateWindow cacheHitWindow = new RateWindow(FIFTEEN_MINUTES);
+    private final RateWindow createWindow = new RateWindow(FIFTEEN_MINUTES);
+    private final RateWindow updateWindow = new RateWindow(FIFTEEN_MINUTES);
+    private final RateWindow deleteWindow = new RateWindow(FIFTEEN_MINUTES);
+
+    private final DecaySchedule latencyDecay;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    public InMemoryMetrics() {
+        this(DEFAULT_LATENCY_DECAY);
+    }
+
+    /**
+     * @param latencyDecay интервал, за который вес замеров в гистограммах уменьшается вдвое;
+     *                     {@link Duration#ZERO} — учитывать все замеры с момента старта
+     */
+    public InMemoryMetrics(Duration latencyDecay) {
+        this(latencyDecay, System::nanoTime);
+    }
+
+    InMemoryMetrics(Duration latencyDecay, LongSupplier nanoClock) {
+        this.latencyDecay = new DecaySchedule(latencyDecay, nanoClock);
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
 
     @Override
-    public synchronized void recordCreate() { createCount++; }
+    public void recordCreate(long durationNanos) {
+        createLatency.record(durationNanos);
+        createWindow.increment(currentSecond());
+        createCount.increment();
+    }
 
     @Override
-    public synchronized void recordUpdate() { updateCount++; }
+    public void recordUpdate(long durationNanos) {
+        updateLatency.record(durationNanos);
+        updateWindow.increment(currentSecond());
+        updateCount.increment();
+    }
 
     @Override
-    public synchronized void recordDelete() { deleteCount++; }
+    public void recordDelete(long durationNanos) {
+        deleteLatency.record(durationNanos);
+        deleteWindow.increment(currentSecond());
+        deleteCount.increment();
+    }
 
     @Override
-    public synchronized void recordSearch(long durationNanos, boolean fromCache) {
-        searchCount++;
-        totalSearchTimeNanos += durationNanos;
-        if (fromCache) cacheHitCount++;
+    public void recordLogin(long durationNanos) {
+        loginLatency.record(durationNanos);
     }
 
     @Override
-    public synchronized long getCreateCount() { return createCount; }
+    public void recordSearch(long durationNanos, boolean fromCache) {
+        (fromCache ? searchHitLatency : searchMissLatency).record(durationNanos);
+        long second = currentSecond();
+        searchWindow.increment(second);
+        if (fromCache) cacheHitWindow.increment(second);
+        searchCount.increment();
+        totalSearchTimeNanos.add(durationNanos);
+        if (fromCache) cacheHitCount.increment();
+    }
 
     @Override
-    public synchronized long getUpdateCount() { return updateCount; }
+    public void recordCoalescedSearch() { coalescedSearchCount.increment(); }
 
     @Override
-    public synchronized long getDeleteCount() { return deleteCount; }
+    public void recordByIdLookup(boolean fromCache) {
+        if (fromCache) byIdHitCount.increment();
+        else byIdMissCount.increment();
+    }
+
+    @Override
+    public void recordCacheState(long entries, long estimatedBytes, long evictions) {
+        cacheState = new CacheState(entries, estimatedBytes, evictions);
+    }
 
     @Override
-    public synchronized long getSearchCount() { return searchCount; }
+    public void recordTextIndexState(long trigrams, long postingEntries) {
+        textIndexState = new TextIndexState(trigrams, postingEntries);
+    }
 
     @Override
-    public synchronized long getCacheHitCount() { return cacheHitCount; }
+    public void recordExport(long rows, long bytes, long durationNanos) {
+        totalExportTimeNanos.add(durationNanos);
+        exportedRows.add(rows);
+        exportedBytes.add(bytes);
+        exportCount.increment();
+    }
 
     @Override
-    public synchronized double getAverageSearchTimeMillis() {
-        if (searchCount == 0) return 0.0;
-        return (totalSearchTimeNanos / 1_000_000.0) / searchCount;
+    public MetricsSnapshot snapshot() {
+        decayLatenciesIfDue();
+        long now = currentSecond();
+
+        // Попадания за окно читаются раньше поисков, как и итоговые счётчики
+        WindowRates hitRate = rates(cacheHitWindow, now);
+        WindowRates searchRate = rates(searchWindow, now);
+
+        long hits = cacheHitCount.sum();
+        long searches = searchCount.sum();
+        long searchNanos = totalSearchTimeNanos.sum();
+
+        long exports = exportCount.sum();
+        long bytes = exportedBytes.sum();
+        long rows = exportedRows.sum();
+        long exportNanos = totalExportTimeNanos.sum();
+
+        CacheState cache = cacheState;
+        TextIndexState index = textIndexState;
+
+        return MetricsSnapshot.builder()
+                .createCount(createCount.sum())
+                .updateCount(updateCount.sum())
+                .deleteCount(deleteCount.sum())
+                .searchCount(searches)
+                .cacheHitCount(hits)
+                .coalescedSearchCount(coalescedSearchCount.sum())
+                .byIdHitCount(byIdHitCount.sum())
+                .byIdMissCount(byIdMissCount.sum())
+                .averageSearchTimeMillis(averageMillis(searchNanos, searches))
+                .cacheHitRatio(ratio(hits, searches))
+                .cacheEntries(cache.entries())
+                .cacheEstimatedBytes(cache.estimatedBytes())
+                .cacheEvictionCount(cache.evictions())
+                .textIndexTrigrams(index.trigrams())
+                .textIndexPostings(index.postings())
+                .exportCount(exports)
+                .exportedRows(rows)
+                .exportedBytes(bytes)
+                .exportRowsPerSecond(perSecond(rows, exportNanos))
+                .exportBytesPerSecond(perSecond(bytes, exportNanos))
+                .searchHitLatency(searchHitLatency.summary())
+                .searchMissLatency(searchMissLatency.summary())
+                .createLatency(createLatency.summary())
+                .updateLatency(updateLatency.summary())
+                .deleteLatency(deleteLatency.summary())
+                .loginLatency(loginLatency.summary())
+                .searchRate(searchRate)
+                .cacheHitRate(hitRate)
+                .recentCacheHitRatio(new WindowRates(
+                        ratio(hitRate.oneMinute(), searchRate.oneMinute()),
+                        ratio(hitRate.fiveMinutes(), searchRate.fiveMinutes()),
+                        ratio(hitRate.fifteenMinutes(), searchRate.fifteenMinutes())))
+                .createRate(rates(createWindow, now))
+                .updateRate(rates(updateWindow, now))
+                .deleteRate(rates(deleteWindow, now))
+                .build();
+    }
+
+    /** Номер текущей секунды от создания метрик. */
+    private long currentSecond() {
+        return (nanoClock.getAsLong() - startNanos) / NANOS_PER_SECOND;
     }
 
+    /**
+     * Событий в секунду за каждое окно. Сразу после старта делим на прошедшее время,
+     * а не на всё окно, иначе скорость была бы занижена.
+     */
+    private static WindowRates rates(RateWindow window, long now) {
+        return new WindowRates(
+                perSecond(window, now, ONE_MINUTE),
+                perSecond(window, now, FIVE_MINUTES),
+                perSecond(window, now, FIFTEEN_MINUTES));
+    }
+
+    private static double perSecond(RateWindow window, long now, int seconds) {
+        long elapsed = Math.min(seconds, now);
+        if (elapsed == 0) return 0.0;
+        return (double) window.sum(now, seconds) / elapsed;
+    }
+
+    private void decayLatenciesIfDue() {
+        int halvings = latencyDecay.claimHalvings();
+        if (halvings == 0) {
+            return;
+        }
+        searchHitLatency.decay(halvings);
+        searchMissLatency.decay(halvings);
+        createLatency.decay(halvings);
+        updateLatency.decay(halvings);
+        deleteLatency.decay(halvings);
+        loginLatency.decay(halvings);
+    }
+
+    @Override
+    public long getCreateCount() { return createCount.sum(); }
+
+    @Override
+    public long getUpdateCount() { return updateCount.sum(); }
+
+    @Override
+    public long getDeleteCount() { return deleteCount.sum(); }
+
+    @Override
+    public long getSearchCount() { return searchCount.sum(); }
+
     @Override
-    public synchronized double getCacheHitRatio() {
-        if (searchCount == 0) return 0.0;
-        return (double) cacheHitCount / searchCount;
+    public long getCacheHitCount() { return cacheHitCount.sum(); }
+
+    @Override
+    public long getCoalescedSearchCount() { return coalescedSearchCount.sum(); }
+
+    @Override
+    public long getByIdHitCount() { return byIdHitCount.sum(); }
+
+    @Override
+    public long getByIdMissCount() { return byIdMissCount.sum(); }
+
+    @Override
+    public long getCacheEntries() { return cacheState.entries(); }
+
+    @Override
+    public long getCacheEstimatedBytes() { return cacheState.estimatedBytes(); }
+
+    @Override
+    public long getCacheEvictionCount() { return cacheState.evictions(); }
+
+    @Override
+    public long getTextIndexTrigrams() { return textIndexState.trigrams(); }
+
+    @Override
+    public long getTextIndexPostings() { return textIndexState.postings(); }
+
+    @Override
+    public long getExportCount() { return exportCount.sum(); }
+
+    @Override
+    public long getExportedRows() { return exportedRows.sum(); }
+
+    @Override
+    public long getExportedBytes() { return exportedBytes.sum(); }
+
+    @Override
+    public double getExportRowsPerSecond() {
+        long rows = exportedRows.sum();
+        return perSecond(rows, totalExportTimeNanos.sum());
+    }
+
+    @Override
+    public double getExportBytesPerSecond() {
+        long bytes = exportedBytes.sum();
+        return perSecond(bytes, totalExportTimeNanos.sum());
+    }
+
+    @Override
+    public double getAverageSearchTimeMillis() {
+        long searches = searchCount.sum();
+        return averageMillis(totalSearchTimeNanos.sum(), searches);
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = cacheHitCount.sum();
+        return ratio(hits, searchCount.sum());
+    }
+
+    private static double perSecond(long amount, long nanos) {
+        if (nanos == 0) return 0.0;
+        return amount / (nanos / 1_000_000_000.0);
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        if (count == 0) return 0.0;
+        return (totalNanos / 1_000_000.0) / count;
+    }
+
+    private static double ratio(long part, long total) {
+        if (total == 0) return 0.0;
+        return (double) part / total;
+    }
+
+    private static double ratio(double part, double total) {
+        if (total == 0.0) return 0.0;
+        return Math.min(1.0, part / total);
+    }
+
+    private record CacheState(long entries, long estimatedBytes, long evictions) {
+    }
+
+    private record TextIndexState(long trigrams, long postings) {
     }
 }
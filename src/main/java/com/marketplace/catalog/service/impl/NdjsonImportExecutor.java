@@ -0,0 +1,60 @@
+package com.marketplace.catalog.service.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий пул потоков для конвейеров импорта NDJSON.
+ * <p>
+ * Каждому импорту нужны сразу все его стадии ({@code workers} обработчиков и вставка):
+ * если часть стадий ждала бы свободного потока, остальные стояли бы на полных очередях.
+ * Поэтому пул рассчитан ровно на {@code maxConcurrentImports} импортов, а следующий
+ * импорт ждёт, пока освободится место, — число потоков не растёт с числом запросов.
+ */
+public final class NdjsonImportExecutor implements AutoCloseable {
+
+    private final ExecutorService pool;
+    private final Semaphore slots;
+
+    public NdjsonImportExecutor(NdjsonImportSettings settings) {
+        this.slots = new Semaphore(settings.maxConcurrentImports(), true);
+        this.pool = Executors.newFixedThreadPool(
+                settings.maxConcurrentImports() * (settings.workers() + 1), threadFactory());
+    }
+
+    /** Ждёт места под очередной импорт. */
+    void acquire() throws InterruptedException {
+        slots.acquire();
+    }
+
+    /** Освобождает место, занятое {@link #acquire()}. */
+    void release() {
+        slots.release();
+    }
+
+    <T> Future<T> submit(Callable<T> task) {
+        return pool.submit(task);
+    }
+
+    /**
+     * Останавливает потоки пула.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "ndjson-import-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
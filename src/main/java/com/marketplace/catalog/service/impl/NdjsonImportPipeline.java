@@ -0,0 +1,362 @@
+package com.marketplace.catalog.service.impl;
+
+import com.marketplace.catalog.exception.ProductValidationException;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.ImportRowError;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.repository.ProductRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Конвейер импорта NDJSON из трёх стадий, связанных ограниченными очередями:
+ * <ol>
+ *     <li>чтение строк из потока (вызывающий поток);</li>
+ *     <li>разбор JSON и проверки — {@code workers} потоков;</li>
+ *     <li>пакетная вставка через {@link ProductRepository#saveAll} — один поток.</li>
+ * </ol>
+ * Потоки стадий 2 и 3 берутся из общего {@link NdjsonImportExecutor}.
+ * <p>
+ * Поток делится на строки вручную, а не одним потоковым {@code JsonParser} на весь вход:
+ * так строки разбираются параллельно, длина строки ограничивается до разбора,
+ * а синтаксическая ошибка в одной строке не ломает разбор следующих.
+ * Если стадия не успевает, очередь перед ней заполняется и предыдущая стадия ждёт,
+ * поэтому память ограничена ёмкостью очередей и длиной строки, а не размером файла.
+ * <p>
+ * Импорт не атомарен: пакеты сохраняются по мере готовности, и порядок вставки
+ * может не совпадать с порядком строк в файле. Экземпляр одноразовый.
+ */
+final class NdjsonImportPipeline {
+
+    private static final RawLine END_OF_INPUT = new RawLine(-1, null);
+    private static final ParsedRow END_OF_ROWS = new ParsedRow(-1, null);
+
+    /** Как часто ожидающая стадия проверяет, не остановлен ли конвейер. */
+    private static final long POLL_MILLIS = 100;
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    private static final String ERR_LINE_TOO_LONG = "line is longer than %d characters";
+    private static final String ERR_INSERT        = "insert failed: ";
+
+    private final ProductRepository repository;
+    private final Function<String, Product> decoder;
+    private final Consumer<Product> validator;
+    private final NdjsonImportSettings settings;
+    private final NdjsonImportExecutor executor;
+
+    private final BlockingQueue<RawLine> lines;
+    private final BlockingQueue<ParsedRow> rows;
+    private final ErrorReport errors;
+    private final AtomicInteger activeWorkers;
+    private final AtomicLong imported = new AtomicLong();
+    /** Первый сбой стадии — настоящая причина остановки конвейера. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean aborted;
+
+    /**
+     * @param decoder   разбор строки в товар; некорректная строка — {@link ProductValidationException}
+     * @param validator бизнес-проверка товара
+     * @param maxErrors сколько ошибок по строкам (с наименьшими номерами) вернуть в отчёте
+     */
+    NdjsonImportPipeline(ProductRepository repository,
+                         Function<String, Product> decoder,
+                         Consumer<Product> validator,
+                         NdjsonImportSettings settings,
+                         NdjsonImportExecutor executor,
+                         int maxErrors) {
+        this.repository = repository;
+        this.decoder = decoder;
+        this.validator = validator;
+        this.settings = settings;
+        this.executor = executor;
+        this.lines = new ArrayBlockingQueue<>(settings.queueCapacity());
+        this.rows = new ArrayBlockingQueue<>(settings.queueCapacity());
+        this.errors = new ErrorReport(maxErrors);
+        this.activeWorkers = new AtomicInteger(settings.workers());
+    }
+
+    ImportResult run(InputStream in) throws IOException, InterruptedException {
+        executor.acquire();
+        List<Future<?>> stages = new ArrayList<>();
+        try {
+            long started = System.nanoTime();
+            for (int i = 0; i < settings.workers(); i++) {
+                stages.add(executor.submit(guarded(this::validateLoop)));
+            }
+            stages.add(executor.submit(guarded(this::insertLoop)));
+
+            long total;
+            try {
+                total = readLines(in);
+                for (int i = 0; i < settings.workers(); i++) {
+                    put(lines, END_OF_INPUT);
+                }
+            } catch (IOException | RuntimeException e) {
+                aborted = true;
+                // Чтение остановила упавшая стадия: вызывающему нужна её ошибка, а не отмена
+                awaitStages(stages);
+                if (e instanceof CancellationException) {
+                    rethrowFailure();
+                }
+                throw e;
+            } catch (InterruptedException e) {
+                aborted = true;
+                throw e;
+            }
+            awaitStages(stages);
+            rethrowFailure();
+
+            long done = imported.get();
+            return new ImportResult(total, done, total - done, errors.sorted(), System.nanoTime() - started);
+        } finally {
+            for (Future<?> stage : stages) {
+                stage.cancel(true);
+            }
+            executor.release();
+        }
+    }
+
+    // ---- Стадия 1: чтение строк ---------------------------------------------
+
+    /**
+     * Делит поток на строки, не держа в памяти больше одной строки. Пустые строки пропускаются.
+     *
+     * @return число непустых строк
+     */
+    private long readLines(InputStream in) throws IOException, InterruptedException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buf = new char[READ_BUFFER_CHARS];
+        StringBuilder line = new StringBuilder();
+        boolean tooLong = false;
+        long lineNo = 0;
+        long total = 0;
+
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char ch = buf[i];
+                if (ch == '\n') {
+                    lineNo++;
+                    total += emit(lineNo, line, tooLong);
+                    line.setLength(0);
+                    tooLong = false;
+                } else if (!tooLong) {
+                    if (line.length() == settings.maxLineChars()) {
+                        tooLong = true;
+                        line.setLength(0);
+                    } else {
+                        line.append(ch);
+                    }
+                }
+            }
+        }
+        if (!line.isEmpty() || tooLong) {
+            total += emit(lineNo + 1, line, tooLong);
+        }
+        return total;
+    }
+
+    private int emit(long lineNo, StringBuilder line, boolean tooLong) throws InterruptedException {
+        if (tooLong) {
+            errors.add(lineNo, ERR_LINE_TOO_LONG.formatted(settings.maxLineChars()));
+            return 1;
+        }
+        String text = line.toString().strip();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        put(lines, new RawLine(lineNo, text));
+        return 1;
+    }
+
+    // ---- Стадия 2: разбор и проверки ----------------------------------------
+
+    private void validateLoop() throws InterruptedException {
+        while (true) {
+            RawLine line = take(lines);
+            if (line == END_OF_INPUT) {
+                // Последний завершившийся обработчик сообщает вставке, что строк больше не будет
+                if (activeWorkers.decrementAndGet() == 0) {
+                    put(rows, END_OF_ROWS);
+                }
+                return;
+            }
+            Product product;
+            try {
+                product = decoder.apply(line.text());
+                validator.accept(product);
+            } catch (RuntimeException e) {
+                errors.add(line.number(), e.getMessage());
+                continue;
+            }
+            put(rows, new ParsedRow(line.number(), product));
+        }
+    }
+
+    // ---- Стадия 3: пакетная вставка -----------------------------------------
+
+    private void insertLoop() throws InterruptedException {
+        List<ParsedRow> batch = new ArrayList<>(settings.batchSize());
+        while (true) {
+            ParsedRow row = take(rows);
+            if (row == END_OF_ROWS) {
+                flush(batch);
+                return;
+            }
+            batch.add(row);
+            if (batch.size() >= settings.batchSize()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<ParsedRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Product> products = new ArrayList<>(batch.size());
+        for (ParsedRow row : batch) {
+            products.add(row.product());
+        }
+        try {
+            repository.saveAll(products);
+            imported.addAndGet(products.size());
+        } catch (RuntimeException e) {
+            // Пакет откатывается целиком: ошибка относится к каждой его строке
+            for (ParsedRow row : batch) {
+                errors.add(row.number(), ERR_INSERT + e.getMessage());
+            }
+        }
+        batch.clear();
+    }
+
+    // ---- Очереди и потоки ---------------------------------------------------
+
+    private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkNotAborted();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            checkNotAborted();
+        }
+    }
+
+    private void checkNotAborted() {
+        if (aborted) {
+            throw new CancellationException("Import aborted");
+        }
+    }
+
+    /** Сбой любой стадии останавливает остальные, иначе они ждали бы друг друга бесконечно. */
+    private Callable<Void> guarded(Stage stage) {
+        return () -> {
+            try {
+                stage.run();
+                return null;
+            } catch (Throwable t) {
+                // Отмена — следствие чужого сбоя, причиной она не считается
+                if (!(t instanceof CancellationException)) {
+                    failure.compareAndSet(null, t);
+                }
+                aborted = true;
+                throw t;
+            }
+        };
+    }
+
+    /** Дожидается всех стадий; их ошибки уже сохранены в {@link #failure}. */
+    private static void awaitStages(List<Future<?>> stages) throws InterruptedException {
+        for (Future<?> stage : stages) {
+            try {
+                stage.get();
+            } catch (ExecutionException ignored) {
+                // причина в failure
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable t = failure.get();
+        if (t == null) {
+            return;
+        }
+        if (t instanceof RuntimeException re) {
+            throw re;
+        }
+        if (t instanceof Error err) {
+            throw err;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    private record RawLine(long number, String text) {
+    }
+
+    private record ParsedRow(long number, Product product) {
+    }
+
+    /**
+     * Хранит не больше {@code limit} ошибок с наименьшими номерами строк:
+     * обработчики работают параллельно, и ошибки приходят не по порядку.
+     */
+    private static final class ErrorReport {
+
+        private final int limit;
+        private final PriorityQueue<ImportRowError> kept =
+                new PriorityQueue<>(Comparator.comparingLong(ImportRowError::row).reversed());
+
+        ErrorReport(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized void add(long row, String message) {
+            if (limit == 0) {
+                return;
+            }
+            if (kept.size() < limit) {
+                kept.add(new ImportRowError(row, message));
+            } else if (row < kept.peek().row()) {
+                kept.poll();
+                kept.add(new ImportRowError(row, message));
+            }
+        }
+
+        synchronized List<ImportRowError> sorted() {
+            List<ImportRowError> result = new ArrayList<>(kept);
+            result.sort(Comparator.comparingLong(ImportRowError::row));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.marketplace.catalog.service.impl;
+
+/**
+ * Параметры конвейера импорта NDJSON.
+ *
+ * @param workers       число потоков разбора и проверки строк
+ * @param queueCapacity ёмкость каждой из очередей между стадиями
+ * @param batchSize     сколько товаров сохраняется одним вызовом {@code saveAll}
+ * @param maxLineChars  максимальная длина строки; более длинные строки отклоняются, не попадая в память
+ * @param maxConcurrentImports сколько импортов выполняется одновременно; остальные ждут своей очереди
+ */
+public record NdjsonImportSettings(int workers, int queueCapacity, int batchSize, int maxLineChars,
+                                   int maxConcurrentImports) {
+
+    public static final NdjsonImportSettings DEFAULT = new NdjsonImportSettings(
+            Runtime.getRuntime().availableProcessors(), 1_000, 500, 1024 * 1024, 2);
+}
@@ -0,0 +1,139 @@
+package com.marketplace.catalog.service.impl;
+
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.exception.ProductImportException;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.repository.ProductBulkRepository;
+import com.marketplace.catalog.repository.ProductRepository;
+import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.ProductBulkService;
+import com.marketplace.catalog.service.ProductService;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.function.Function;
+
+/**
+ * Реализация массовой загрузки товаров по умолчанию.
+ */
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    /** Сколько ошибок по записям возвращать в отчёте; остальные только считаются. */
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String ERR_READ        = "Failed to read import stream";
+    private static final String ERR_INTERRUPTED = "Import interrupted";
+    private static final String ERR_NO_COPY     = "CSV import and export require repository.type=jdbc";
+
+    private final ProductBulkRepository bulkRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final Metrics metrics;
+    private final NdjsonImportSettings ndjsonSettings;
+    private final NdjsonImportExecutor importExecutor;
+
+    public ProductBulkServiceImpl(ProductBulkRepository bulkRepository,
+                                  ProductRepository productRepository,
+                                  ProductService productService,
+                                  Metrics metrics) {
+        this(bulkRepository, productRepository, productService, metrics, NdjsonImportSettings.DEFAULT,
+                new NdjsonImportExecutor(NdjsonImportSettings.DEFAULT));
+    }
+
+    /**
+     * @param bulkRepository репозиторий COPY-операций или null, если хранилище их не поддерживает
+     *                       (импорт CSV и выгрузка тогда недоступны, импорт NDJSON работает)
+     * @param importExecutor общий пул потоков импорта NDJSON, рассчитанный на {@code ndjsonSettings}
+     */
+    public ProductBulkServiceImpl(ProductBulkRepository bulkRepository,
+                                  ProductRepository productRepository,
+                                  ProductService productService,
+                                  Metrics metrics,
+                                  NdjsonImportSettings ndjsonSettings,
+                                  NdjsonImportExecutor importExecutor) {
+        this.bulkRepository = bulkRepository;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.metrics = metrics;
+        this.ndjsonSettings = ndjsonSettings;
+        this.importExecutor = importExecutor;
+    }
+
+    @Override
+    public ImportResult importCsv(Reader csv, String username) {
+        long started = System.nanoTime();
+        ImportResult result = requireBulkRepository().importCsv(csv, MAX_REPORTED_ERRORS);
+        refreshIfChanged(result);
+        return result.withDuration(System.nanoTime() - started);
+    }
+
+    @Override
+    public ImportResult importNdjson(InputStream ndjson, Function<String, Product> decoder, String username) {
+        NdjsonImportPipeline pipeline = new NdjsonImportPipeline(
+                productRepository, decoder, ProductServiceImpl::validate, ndjsonSettings, importExecutor,
+                MAX_REPORTED_ERRORS);
+        try {
+            ImportResult result = pipeline.run(ndjson);
+            refreshIfChanged(result);
+            return result;
+        } catch (IOException e) {
+            productService.refresh();
+            throw new ProductImportException(ERR_READ, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            productService.refresh();
+            throw new ProductImportException(ERR_INTERRUPTED, e);
+        }
+    }
+
+    /** Кэш и индекс сбрасываются один раз на весь файл. */
+    private void refreshIfChanged(ImportResult result) {
+        if (result.importedRows() > 0) {
+            productService.refresh();
+        }
+    }
+
+    @Override
+    public long export(OutputStream out, BulkFormat format, Category category) {
+        ProductBulkRepository repository = requireBulkRepository();
+        long started = System.nanoTime();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        long rows = repository.export(counting, format, category);
+        metrics.recordExport(rows, counting.count, System.nanoTime() - started);
+        return rows;
+    }
+
+    private ProductBulkRepository requireBulkRepository() {
+        if (bulkRepository == null) {
+            throw new UnsupportedOperationException(ERR_NO_COPY);
+        }
+        return bulkRepository;
+    }
+
+    /** Считает байты, записанные в поток ответа. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -3,38 +3,97 @@ package com.marketplace.catalog.service.impl;
 import com.marketplace.catalog.exception.ProductValidationException;
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductPage;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.model.TextSearchMode;
 import com.marketplace.catalog.repository.ProductRepository;
 import com.marketplace.catalog.service.Metrics;
 import com.marketplace.catalog.service.ProductService;
+import com.marketplace.catalog.service.cache.BoundedCache;
+import com.marketplace.catalog.service.cache.LongKeyCache;
+import com.marketplace.catalog.service.cache.SearchCacheSettings;
+import com.marketplace.catalog.service.cache.SingleFlight;
+import com.marketplace.catalog.service.index.ProductIndex;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ProductServiceImpl  implements ProductService {
 
+    /** Оценка накладных расходов на список и на один товар в байтах (заголовки объектов, ссылки, поля). */
+    private static final long LIST_OVERHEAD_BYTES    = 64;
+    private static final long PRODUCT_OVERHEAD_BYTES = 160;
+    private static final long STRING_OVERHEAD_BYTES  = 40;
+
+    /** Размер кэша товаров по id по умолчанию. */
+    public static final int DEFAULT_PRODUCT_CACHE_SIZE = 10_000;
+
     private final ProductRepository productRepository;
     private final Metrics metrics;
 
-    private final Map<String, List<Product>> searchCache = new HashMap<>();
+    private final BoundedCache<ProductSearchCriteria, List<Product>> searchCache;
+    private final SingleFlight<ProductSearchCriteria, List<Product>> searchFlights = new SingleFlight<>();
+    /** Поисковый индекс в памяти; null, если поиск идёт через репозиторий. */
+    private final ProductIndex productIndex;
+    /** Товары по id для GET /api/products/{id}. */
+    private final LongKeyCache<Product> productCache;
 
     public ProductServiceImpl(ProductRepository productRepository,
                           Metrics metrics) {
+        this(productRepository, metrics, SearchCacheSettings.DEFAULT);
+    }
+
+    public ProductServiceImpl(ProductRepository productRepository,
+                              Metrics metrics,
+                              SearchCacheSettings cacheSettings) {
+        this(productRepository, metrics, cacheSettings, null);
+    }
+
+    public ProductServiceImpl(ProductRepository productRepository,
+                              Metrics metrics,
+                              SearchCacheSettings cacheSettings,
+                              ProductIndex productIndex) {
+        this(productRepository, metrics, cacheSettings, productIndex, DEFAULT_PRODUCT_CACHE_SIZE);
+    }
+
+    /**
+     * @param productCacheSize сколько товаров держать в кэше выборки по id
+     */
+    public ProductServiceImpl(ProductRepository productRepository,
+                              Metrics metrics,
+                              SearchCacheSettings cacheSettings,
+                              ProductIndex productIndex,
+                              int productCacheSize) {
         this.productRepository = productRepository;
         this.metrics = metrics;
+        this.productIndex = productIndex;
+        this.productCache = new LongKeyCache<>(productCacheSize);
+        this.searchCache = new BoundedCache<>(
+                cacheSettings.maxEntries(),
+                cacheSettings.maxWeightBytes(),
+                cacheSettings.ttl(),
+                ProductServiceImpl::estimateBytes);
     }
 
     /**
      * Создаёт новый товар.
      */
     public Product createProduct(Product product, String username) {
+        long started = System.nanoTime();
         validateProduct(product, username);
         Product saved = productRepository.save(product);
-        invalidateCache();
-        metrics.recordCreate();
+        updateIndex(saved);
+        invalidateCacheFor(saved);
+        metrics.recordCreate(System.nanoTime() - started);
         return saved;
     }
 
@@ -42,36 +101,39 @@ public class ProductServiceImpl  implements ProductService {
      * Обновляет существующий товар.
      */
     public Optional<Product> updateProduct(Long id, Product updated, String username) {
-        Optional<Product> existingOpt = productRepository.findById(id);
-        if (existingOpt.isEmpty()) {
-            return Optional.empty();
-        }
-        Product existing = existingOpt.get();
-        existing.setName(updated.getName());
-        existing.setBrand(updated.getBrand());
-        existing.setCategory(updated.getCategory());
-        existing.setPrice(updated.getPrice());
-        existing.setDescription(updated.getDescription());
-
+        long started = System.nanoTime();
         validateProduct(updated, username);
 
-        productRepository.save(existing);
-        invalidateCache();
-        metrics.recordUpdate();
-        return Optional.of(existing);
+        Product target = updated.copy();
+        target.setId(id);
+
+        // Одна команда: наличие товара, прежняя и новая версии приходят вместе
+        Optional<ProductChange> change = productRepository.updateReturning(target);
+        if (change.isEmpty()) {
+            return Optional.empty();
+        }
+        Product after = change.get().after();
+        productCache.invalidate(id);
+        updateIndex(after);
+        invalidateCacheFor(change.get().before(), after);
+        metrics.recordUpdate(System.nanoTime() - started);
+        return Optional.of(after);
     }
 
     /**
      * Удаляет товар.
      */
     public boolean deleteProduct(Long id, String username) {
-        if (productRepository.findById(id).isPresent()) {
-            productRepository.deleteById(id);
-            invalidateCache();
-            metrics.recordDelete();
-            return true;
+        long started = System.nanoTime();
+        Optional<Product> deleted = productRepository.deleteReturning(id);
+        if (deleted.isEmpty()) {
+            return false;
         }
-        return false;
+        productCache.invalidate(id);
+        removeFromIndex(id);
+        invalidateCacheFor(deleted.get());
+        metrics.recordDelete(System.nanoTime() - started);
+        return true;
     }
 
     /**
@@ -81,6 +143,51 @@ public class ProductServiceImpl  implements ProductService {
         return productRepository.findAll();
     }
 
+    /**
+     * Товар по id через кэш: при промахе читается из репозитория и кэшируется,
+     * если за время чтения товар не изменили.
+     */
+    public Optional<Product> findById(Long id) {
+        Product cached = productCache.get(id);
+        metrics.recordByIdLookup(cached != null);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long epoch = productCache.epoch();
+        Optional<Product> loaded = productRepository.findById(id);
+        loaded.ifPresent(p -> productCache.put(id, p, epoch));
+        return loaded;
+    }
+
+    /**
+     * Товары по списку id в порядке запроса.
+     */
+    public List<Product> findByIds(Collection<Long> ids) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : productRepository.findAllByIds(unique)) {
+            byId.put(p.getId(), p);
+        }
+        List<Product> result = new ArrayList<>(byId.size());
+        for (Long id : unique) {
+            Product p = byId.get(id);
+            if (p != null) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Потоковый обход всех товаров.
+     */
+    public void forEachProduct(Consumer<? super Product> action) {
+        productRepository.forEach(action);
+    }
+
     /**
      * Возвращает количество товаров.
      */
@@ -88,6 +195,21 @@ public class ProductServiceImpl  implements ProductService {
         return productRepository.count();
     }
 
+    /**
+     * Сбрасывает всё, что построено по прежнему содержимому каталога, одним вызовом
+     * после массового изменения, а не по строке.
+     */
+    public void refresh() {
+        searchFlights.forgetIf(criteria -> true);
+        searchCache.invalidateAll();
+        productCache.invalidateAll();
+        publishCacheState();
+        if (productIndex != null) {
+            productIndex.unload();
+            publishIndexState();
+        }
+    }
+
     /**
      * Поиск и фильтрация товаров.
      */
@@ -96,81 +218,167 @@ public class ProductServiceImpl  implements ProductService {
                                 BigDecimal minPrice,
                                 BigDecimal maxPrice,
                                 String text) {
-        long started = System.nanoTime();
-        String key = buildCacheKey(category, brand, minPrice, maxPrice, text);
+        return search(new ProductSearchCriteria(category, brand, minPrice, maxPrice, text));
+    }
 
-        List<Product> result = getFromCache(key);
+    /**
+     * Поиск по критериям с кэшированием результата.
+     */
+    public List<Product> search(ProductSearchCriteria criteria) {
+        long started = System.nanoTime();
+        List<Product> result = searchCache.get(criteria);
         boolean fromCache = result != null;
 
         if (!fromCache) {
-            result = filterProducts(category, brand, minPrice, maxPrice, text);
-            putToCache(key, result);
+            // Одинаковые одновременные промахи выполняют один запрос к репозиторию
+            SingleFlight.Outcome<List<Product>> outcome =
+                    searchFlights.execute(criteria, () -> loadAndCache(criteria));
+            if (outcome.shared()) {
+                metrics.recordCoalescedSearch();
+            }
+            result = outcome.value();
         }
 
         metrics.recordSearch(System.nanoTime() - started, fromCache);
         return result;
     }
 
-    private List<Product> getFromCache(String key) {
-        return searchCache.get(key);
+    /**
+     * Страница товаров.
+     * Страницы с фильтрами и без читаются из репозитория по ключу ({@code id > afterId}):
+     * каждая стоит как первая и не требует полного результата поиска. Исключение —
+     * полнотекстовый режим с порядком по релевантности: там результат поиска берётся
+     * из кэша и нарезается по позиции {@code afterId}.
+     */
+    public ProductPage findPage(ProductSearchCriteria criteria, long afterId, int limit) {
+        if (criteria.textMode() != TextSearchMode.FULLTEXT) {
+            // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+            List<Product> rows = productRepository.findPage(criteria, afterId, limit + 1);
+            return toPage(rows, 0, limit);
+        }
+        List<Product> result = search(criteria);
+        return toPage(result, startAfter(result, afterId), limit);
     }
 
-    private void putToCache(String key, List<Product> value) {
-        searchCache.put(key, value);
+    /**
+     * Позиция первого товара после {@code afterId} в результате, упорядоченном по релевантности:
+     * товар ищется перебором, а если его уже нет в результате — страниц дальше нет.
+     */
+    private static int startAfter(List<Product> result, long afterId) {
+        if (afterId <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < result.size(); i++) {
+            if (result.get(i).getId() == afterId) {
+                return i + 1;
+            }
+        }
+        return result.size();
     }
 
-    /** Применяет все фильтры к списку товаров. */
-    private List<Product> filterProducts(Category category,
-                                         String brand,
-                                         BigDecimal minPrice,
-                                         BigDecimal maxPrice,
-                                         String text) {
-        final String brandNorm = norm(brand);
-        final String textNorm = norm(text);
+    private static ProductPage toPage(List<Product> products, int from, int limit) {
+        int to = Math.min(products.size(), from + limit);
+        List<Product> items = products.subList(from, to);
+        Long nextAfterId = to < products.size() && !items.isEmpty()
+                ? items.get(items.size() - 1).getId()
+                : null;
+        return new ProductPage(items, nextAfterId);
+    }
 
-        return productRepository.findAll().stream()
-                .filter(p -> category == null || p.getCategory() == category)
-                .filter(p -> brandNorm == null || norm(p.getBrand()) != null && norm(p.getBrand()).equals(brandNorm))
-                .filter(p -> minPrice == null || p.getPrice().compareTo(minPrice) >= 0)
-                .filter(p -> maxPrice == null || p.getPrice().compareTo(maxPrice) <= 0)
-                .filter(p -> textNorm == null || containsText(p, textNorm))
-                .collect(Collectors.toList());
+    private List<Product> loadAndCache(ProductSearchCriteria criteria) {
+        long epoch = searchCache.epoch();
+        List<Product> result = List.copyOf(findMatching(criteria));
+        searchCache.put(criteria, result, epoch);
+        publishCacheState();
+        return result;
     }
 
-    /** Нормализует строку для сравнения (lowercase + trim); null/blank → null. */
-    private String norm(String s) {
-        if (s == null) return null;
-        String t = s.trim().toLowerCase();
-        return t.isBlank() ? null : t;
+    private List<Product> findMatching(ProductSearchCriteria criteria) {
+        // Полнотекстовый режим (морфология, операторы, ранжирование) обслуживает только БД
+        if (productIndex == null || criteria.textMode() == TextSearchMode.FULLTEXT) {
+            return productRepository.search(criteria);
+        }
+        if (!productIndex.isLoaded()) {
+            productIndex.loadIfNeeded(productRepository::findAll);
+            publishIndexState();
+        }
+        return productIndex.search(criteria);
     }
 
-    /** Проверка вхождения текста в name/description. */
-    private boolean containsText(Product p, String textNorm) {
-        String name = norm(p.getName());
-        String desc = norm(p.getDescription());
-        return (name != null && name.contains(textNorm)) ||
-                (desc != null && desc.contains(textNorm));
+    private void updateIndex(Product product) {
+        if (productIndex != null) {
+            productIndex.upsert(product);
+            publishIndexState();
+        }
     }
 
-    private String buildCacheKey(Category category, String brand,
-                                 BigDecimal minPrice, BigDecimal maxPrice,
-                                 String text) {
-        return (category != null ? category.name() : "_") + "|" +
-                (brand != null ? brand.toLowerCase() : "_") + "|" +
-                (minPrice != null ? minPrice : "_") + "|" +
-                (maxPrice != null ? maxPrice : "_") + "|" +
-                (text != null ? text.toLowerCase() : "_");
+    private void removeFromIndex(Long id) {
+        if (productIndex != null) {
+            productIndex.remove(id);
+            publishIndexState();
+        }
+    }
+
+    private void publishIndexState() {
+        metrics.recordTextIndexState(productIndex.trigramCount(), productIndex.trigramPostingCount());
+    }
+
+    /**
+     * Выборочная инвалидация: удаляются только закэшированные запросы,
+     * под фильтр которых попадает хотя бы одна из версий изменённого товара.
+     * Остальные результаты поиска изменение не затрагивает, и они остаются в кэше.
+     */
+    private void invalidateCacheFor(Product... versions) {
+        // Запросы, пришедшие после изменения, не должны получить результат, вычисленный до него
+        searchFlights.forgetIf(criteria -> matchesAny(criteria, versions));
+        searchCache.invalidateIf(criteria -> matchesAny(criteria, versions));
+        publishCacheState();
+    }
+
+    private static boolean matchesAny(ProductSearchCriteria criteria, Product... versions) {
+        for (Product p : versions) {
+            if (criteria.mayMatch(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publishCacheState() {
+        metrics.recordCacheState(searchCache.size(), searchCache.weight(), searchCache.evictionCount());
+    }
+
+    /** Грубая оценка объёма памяти, занимаемого закэшированным результатом поиска. */
+    private static long estimateBytes(List<Product> products) {
+        long bytes = LIST_OVERHEAD_BYTES;
+        for (Product p : products) {
+            bytes += PRODUCT_OVERHEAD_BYTES
+                    + stringBytes(p.getName())
+                    + stringBytes(p.getBrand())
+                    + stringBytes(p.getDescription());
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : STRING_OVERHEAD_BYTES + s.length();
     }
 
-    private void invalidateCache() {
-        searchCache.clear();
+    /**
+     * Бизнес-валидация товара для массового импорта.
+     * Не public: проверка каждой строки файла не должна проходить через аспект логирования.
+     *
+     * @throws ProductValidationException при некорректных данных
+     */
+    static void validate(Product product) {
+        validateProduct(product, null);
     }
 
     /**
      * Валидация товара.
      * Логирует ошибку в аудит и выбрасывает исключение при некорректных данных.
      */
-    private void validateProduct(Product product, String username) {
+    private static void validateProduct(Product product, String username) {
         validateName(product, username);
         validateCategory(product, username);
         validatePricePresent(product, username);
@@ -178,28 +386,28 @@ public class ProductServiceImpl  implements ProductService {
     }
 
     /** Имя товара обязательно и не может быть пустым. */
-    private void validateName(Product product, String username) {
+    private static void validateName(Product product, String username) {
         if (product.getName() == null || product.getName().isBlank()) {
             throw new ProductValidationException("Название товара не может быть пустым");
         }
     }
 
     /** Категория товара обязательна. */
-    private void validateCategory(Product product, String username) {
+    private static void validateCategory(Product product, String username) {
         if (product.getCategory() == null) {
             throw new ProductValidationException("Категория товара должна быть указана");
         }
     }
 
     /** Цена должна быть указана (не null). */
-    private void validatePricePresent(Product product, String username) {
+    private static void validatePricePresent(Product product, String username) {
         if (product.getPrice() == null) {
             throw new ProductValidationException("Цена товара должна быть указана");
         }
     }
 
     /** Цена не может быть отрицательной. */
-    private void validatePriceNonNegative(Product product, String username) {
+    private static void validatePriceNonNegative(Product product, String username) {
         if (product.getPrice() != null && product.getPrice().compareTo(BigDecimal.ZERO) < 0) {
             throw new ProductValidationException("Цена товара не может быть отрицательной");
         }
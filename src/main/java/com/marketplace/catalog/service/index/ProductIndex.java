@@ -0,0 +1,569 @@
+package com.marketplace.catalog.service.index;
+
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поисковый индекс каталога в памяти процесса.
+ * <p>
+ * Товары хранятся по столбцам (struct-of-arrays): каждому товару выделяется слот,
+ * а его атрибуты лежат в отдельных массивах по номеру слота. Для фильтров
+ * поддерживаются:
+ * <ul>
+ *     <li>битовые множества слотов по каждой {@link Category};</li>
+ *     <li>словарь брендов с битовыми posting-листами;</li>
+ *     <li>отсортированный массив цен в копейках для выборки диапазона;</li>
+ *     <li>заранее нормализованные (lowercase) название и описание;</li>
+ *     <li>инвертированный индекс триграмм названия и описания для текстового фильтра.</li>
+ * </ul>
+ * Комбинация фильтров вычисляется пересечением битовых множеств.
+ * Индекс загружается один раз и далее обновляется инкрементально.
+ */
+public final class ProductIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int TRIGRAM = 3;
+    private static final int NO_BRAND = -1;
+    private static final byte NO_CATEGORY = -1;
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+
+    // ---- Столбцы, индексируемые номером слота ------------------------------
+
+    private Product[] products = new Product[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private int[] brandIds = new int[INITIAL_CAPACITY];
+    private byte[] categories = new byte[INITIAL_CAPACITY];
+    private String[] namesNorm = new String[INITIAL_CAPACITY];
+    private String[] descriptionsNorm = new String[INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    // ---- Вторичные индексы -------------------------------------------------
+
+    private final BitSet[] categorySlots = new BitSet[Category.values().length];
+    private final Map<String, Integer> brandDictionary = new HashMap<>();
+    private final List<BitSet> brandPostings = new ArrayList<>();
+
+    /** Цены всех живых слотов по возрастанию и соответствующие им слоты. */
+    private long[] sortedPrices = new long[INITIAL_CAPACITY];
+    private int[] sortedSlots = new int[INITIAL_CAPACITY];
+    private int sortedCount;
+
+    /** Триграмма (три символа, упакованные в long) → отсортированный список слотов. */
+    private final Map<Long, Posting> trigramPostings = new HashMap<>();
+    private long trigramPostingEntries;
+
+    public ProductIndex() {
+        for (int i = 0; i < categorySlots.length; i++) {
+            categorySlots[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Загружает индекс из источника, если это ещё не сделано.
+     * Изменения, пришедшие во время загрузки, ждут её окончания и затем применяются поверх.
+     * Массив цен заполняется одной сортировкой после загрузки столбцов, а не вставкой
+     * со сдвигом на каждый товар — иначе загрузка каталога стоила бы O(N²).
+     */
+    public void loadIfNeeded(Supplier<List<Product>> source) {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (Product p : source.get()) {
+                    upsertLocked(p, false);
+                }
+                rebuildSortedPrices();
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает индекс после изменения каталога в обход сервиса (массовый импорт):
+     * следующий поиск загрузит его заново.
+     */
+    public void unload() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            products = new Product[INITIAL_CAPACITY];
+            priceCents = new long[INITIAL_CAPACITY];
+            brandIds = new int[INITIAL_CAPACITY];
+            categories = new byte[INITIAL_CAPACITY];
+            namesNorm = new String[INITIAL_CAPACITY];
+            descriptionsNorm = new String[INITIAL_CAPACITY];
+            live.clear();
+            slotCount = 0;
+            freeCount = 0;
+            slotById.clear();
+            for (BitSet slots : categorySlots) {
+                slots.clear();
+            }
+            brandDictionary.clear();
+            brandPostings.clear();
+            sortedPrices = new long[INITIAL_CAPACITY];
+            sortedSlots = new int[INITIAL_CAPACITY];
+            sortedCount = 0;
+            trigramPostings.clear();
+            trigramPostingEntries = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return true, если индекс загружен и отвечает на запросы */
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет товар или заменяет его текущую версию.
+     * До загрузки индекса ничего не делает: загрузка и так прочитает актуальные данные.
+     */
+    public void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                upsertLocked(product, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Удаляет товар из индекса. */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                removeLocked(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет товары по критериям.
+     *
+     * @return подходящие товары в порядке возрастания id
+     */
+    public List<Product> search(ProductSearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+
+            if (criteria.category() != null) {
+                candidates.and(categorySlots[criteria.category().ordinal()]);
+            }
+            if (criteria.brand() != null) {
+                Integer brandId = brandDictionary.get(criteria.brand());
+                if (brandId == null) {
+                    return List.of();
+                }
+                candidates.and(brandPostings.get(brandId));
+            }
+            if (criteria.minPrice() != null || criteria.maxPrice() != null) {
+                candidates.and(slotsInPriceRange(criteria.minPrice(), criteria.maxPrice()));
+            }
+
+            String text = criteria.text();
+            if (text != null && text.length() >= TRIGRAM) {
+                candidates = narrowByTrigrams(candidates, text);
+            }
+
+            List<Product> result = new ArrayList<>(candidates.cardinality());
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (text == null || containsText(slot, text)) {
+                    result.add(products[slot]);
+                }
+            }
+            result.sort(Comparator.comparing(Product::getId));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Число товаров в индексе. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Число различных триграмм в текстовом индексе. */
+    public int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return trigramPostings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Суммарная длина posting-листов текстового индекса. */
+    public long trigramPostingCount() {
+        lock.readLock().lock();
+        try {
+            return trigramPostingEntries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- Изменение индекса (под write-lock) --------------------------------
+
+    /**
+     * @param keepPricesSorted вставить цену в отсортированный массив сразу; при загрузке
+     *                         массив строится потом целиком ({@link #rebuildSortedPrices()})
+     */
+    private void upsertLocked(Product source, boolean keepPricesSorted) {
+        if (source.getId() == null) {
+            return;
+        }
+        removeLocked(source.getId());
+
+        Product p = source.copy();
+        int slot = allocateSlot();
+        products[slot] = p;
+        priceCents[slot] = toCents(p.getPrice());
+        namesNorm[slot] = ProductSearchCriteria.normalize(p.getName());
+        descriptionsNorm[slot] = ProductSearchCriteria.normalize(p.getDescription());
+
+        Category category = p.getCategory();
+        categories[slot] = category != null ? (byte) category.ordinal() : NO_CATEGORY;
+        if (category != null) {
+            categorySlots[category.ordinal()].set(slot);
+        }
+
+        int brandId = brandIdFor(ProductSearchCriteria.normalize(p.getBrand()));
+        brandIds[slot] = brandId;
+        if (brandId != NO_BRAND) {
+            brandPostings.get(brandId).set(slot);
+        }
+
+        if (keepPricesSorted) {
+            insertSortedPrice(priceCents[slot], slot);
+        }
+        indexTrigrams(slot);
+        live.set(slot);
+        slotById.put(p.getId(), slot);
+    }
+
+    private void removeLocked(long id) {
+        Integer boxed = slotById.remove(id);
+        if (boxed == null) {
+            return;
+        }
+        int slot = boxed;
+        live.clear(slot);
+        if (categories[slot] != NO_CATEGORY) {
+            categorySlots[categories[slot]].clear(slot);
+        }
+        if (brandIds[slot] != NO_BRAND) {
+            brandPostings.get(brandIds[slot]).clear(slot);
+        }
+        removeSortedPrice(priceCents[slot], slot);
+        unindexTrigrams(slot);
+
+        products[slot] = null;
+        namesNorm[slot] = null;
+        descriptionsNorm[slot] = null;
+        releaseSlot(slot);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == products.length) {
+            int capacity = products.length * 2;
+            products = Arrays.copyOf(products, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            brandIds = Arrays.copyOf(brandIds, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            namesNorm = Arrays.copyOf(namesNorm, capacity);
+            descriptionsNorm = Arrays.copyOf(descriptionsNorm, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int brandIdFor(String brandNorm) {
+        if (brandNorm == null) {
+            return NO_BRAND;
+        }
+        return brandDictionary.computeIfAbsent(brandNorm, b -> {
+            brandPostings.add(new BitSet());
+            return brandPostings.size() - 1;
+        });
+    }
+
+    // ---- Отсортированный массив цен ----------------------------------------
+
+    /** Заполняет массив цен всех живых слотов одной сортировкой: O(N log N). */
+    private void rebuildSortedPrices() {
+        Integer[] slots = new Integer[live.cardinality()];
+        int n = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            slots[n++] = slot;
+        }
+        Arrays.sort(slots, Comparator.comparingLong(slot -> priceCents[slot]));
+
+        int capacity = Math.max(INITIAL_CAPACITY, n);
+        sortedPrices = new long[capacity];
+        sortedSlots = new int[capacity];
+        for (int i = 0; i < n; i++) {
+            sortedSlots[i] = slots[i];
+            sortedPrices[i] = priceCents[slots[i]];
+        }
+        sortedCount = n;
+    }
+
+    private void insertSortedPrice(long cents, int slot) {
+        if (sortedCount == sortedPrices.length) {
+            sortedPrices = Arrays.copyOf(sortedPrices, sortedCount * 2);
+            sortedSlots = Arrays.copyOf(sortedSlots, sortedCount * 2);
+        }
+        int pos = upperBound(cents);
+        System.arraycopy(sortedPrices, pos, sortedPrices, pos + 1, sortedCount - pos);
+        System.arraycopy(sortedSlots, pos, sortedSlots, pos + 1, sortedCount - pos);
+        sortedPrices[pos] = cents;
+        sortedSlots[pos] = slot;
+        sortedCount++;
+    }
+
+    private void removeSortedPrice(long cents, int slot) {
+        for (int pos = lowerBound(cents); pos < sortedCount && sortedPrices[pos] == cents; pos++) {
+            if (sortedSlots[pos] == slot) {
+                System.arraycopy(sortedPrices, pos + 1, sortedPrices, pos, sortedCount - pos - 1);
+                System.arraycopy(sortedSlots, pos + 1, sortedSlots, pos, sortedCount - pos - 1);
+                sortedCount--;
+                return;
+            }
+        }
+    }
+
+    private BitSet slotsInPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        long from = minPrice != null ? toCentsBound(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long to = maxPrice != null ? toCentsBound(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+
+        BitSet range = new BitSet();
+        for (int pos = lowerBound(from); pos < sortedCount && sortedPrices[pos] <= to; pos++) {
+            range.set(sortedSlots[pos]);
+        }
+        return range;
+    }
+
+    /** Первая позиция с ценой >= cents. */
+    private int lowerBound(long cents) {
+        int lo = 0;
+        int hi = sortedCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedPrices[mid] < cents) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Первая позиция с ценой > cents. */
+    private int upperBound(long cents) {
+        int lo = 0;
+        int hi = sortedCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedPrices[mid] <= cents) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // ---- Триграммный индекс текста -----------------------------------------
+
+    private void indexTrigrams(int slot) {
+        for (long trigram : trigramsOf(namesNorm[slot], descriptionsNorm[slot])) {
+            trigramPostings.computeIfAbsent(trigram, t -> new Posting()).add(slot);
+            trigramPostingEntries++;
+        }
+    }
+
+    private void unindexTrigrams(int slot) {
+        for (long trigram : trigramsOf(namesNorm[slot], descriptionsNorm[slot])) {
+            Posting posting = trigramPostings.get(trigram);
+            if (posting != null && posting.remove(slot)) {
+                trigramPostingEntries--;
+                if (posting.size == 0) {
+                    trigramPostings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Оставляет среди кандидатов только слоты, содержащие все триграммы запроса.
+     * Точная проверка подстроки выполняется после этого сужения.
+     */
+    private BitSet narrowByTrigrams(BitSet candidates, String text) {
+        long[] trigrams = trigramsOf(text);
+        Posting[] postings = new Posting[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            postings[i] = trigramPostings.get(trigrams[i]);
+            if (postings[i] == null) {
+                return new BitSet();
+            }
+        }
+        Arrays.sort(postings, Comparator.comparingInt(p -> p.size));
+
+        BitSet narrowed = new BitSet();
+        Posting shortest = postings[0];
+        for (int i = 0; i < shortest.size; i++) {
+            int slot = shortest.slots[i];
+            if (candidates.get(slot) && inAll(postings, slot)) {
+                narrowed.set(slot);
+            }
+        }
+        return narrowed;
+    }
+
+    private static boolean inAll(Posting[] postings, int slot) {
+        for (int i = 1; i < postings.length; i++) {
+            if (!postings[i].contains(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Различные триграммы всех переданных строк, отсортированные по возрастанию. */
+    private static long[] trigramsOf(String... texts) {
+        int total = 0;
+        for (String t : texts) {
+            if (t != null && t.length() >= TRIGRAM) {
+                total += t.length() - TRIGRAM + 1;
+            }
+        }
+        long[] trigrams = new long[total];
+        int n = 0;
+        for (String t : texts) {
+            if (t == null) {
+                continue;
+            }
+            for (int i = 0; i + TRIGRAM <= t.length(); i++) {
+                trigrams[n++] = ((long) t.charAt(i) << 32) | ((long) t.charAt(i + 1) << 16) | t.charAt(i + 2);
+            }
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /** Отсортированный по возрастанию список слотов. */
+    private static final class Posting {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            int pos = Arrays.binarySearch(slots, 0, size, slot);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+            slots[pos] = slot;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int pos = Arrays.binarySearch(slots, 0, size, slot);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int slot) {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+    }
+
+    // ---- Вспомогательные методы ---------------------------------------------
+
+    private boolean containsText(int slot, String text) {
+        String name = namesNorm[slot];
+        String desc = descriptionsNorm[slot];
+        return (name != null && name.contains(text)) ||
+                (desc != null && desc.contains(text));
+    }
+
+    /** Цена товара в копейках с тем же округлением, что и у колонки NUMERIC(19,2). */
+    private static long toCents(BigDecimal price) {
+        if (price == null) {
+            return 0L;
+        }
+        return toCentsBound(price, RoundingMode.HALF_UP);
+    }
+
+    /** Граница фильтра в копейках; значения вне диапазона long прижимаются к краям. */
+    private static long toCentsBound(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(MAX_CENTS) > 0) return Long.MAX_VALUE;
+        if (cents.compareTo(MIN_CENTS) < 0) return Long.MIN_VALUE;
+        return cents.longValue();
+    }
+}
@@ -0,0 +1,48 @@
+package com.marketplace.catalog.service.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Расписание затухания гистограмм: сколько раз поделить счётчики пополам с прошлой проверки.
+ * <p>
+ * Проверяется лениво (при чтении метрик), фонового потока нет. Прошедшие интервалы
+ * забирает один вызывающий (CAS), поэтому одновременные читатели не делят счётчики дважды.
+ */
+public final class DecaySchedule {
+
+    /** 0 — затухание выключено. */
+    private final long intervalNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong lastDecayNanos;
+
+    /**
+     * @param interval интервал полураспада; {@link Duration#ZERO} — без затухания
+     */
+    public DecaySchedule(Duration interval, LongSupplier nanoClock) {
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Latency decay interval must not be negative");
+        }
+        this.intervalNanos = interval.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastDecayNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Забирает полные интервалы, прошедшие с прошлого раза.
+     *
+     * @return сколько раз поделить счётчики пополам; 0 — пока не нужно
+     */
+    public int claimHalvings() {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long last = lastDecayNanos.get();
+        long periods = (nanoClock.getAsLong() - last) / intervalNanos;
+        if (periods <= 0 || !lastDecayNanos.compareAndSet(last, last + periods * intervalNanos)) {
+            return 0;
+        }
+        return (int) Math.min(periods, Long.SIZE);
+    }
+}
@@ -0,0 +1,176 @@
+package com.marketplace.catalog.service.metrics;
+
+import com.marketplace.catalog.service.LatencySummary;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей с логарифмическими корзинами фиксированного размера.
+ * <p>
+ * Каждая степень двойки наносекунд делится на {@value #SUB_BUCKETS} равных корзин, поэтому
+ * относительная погрешность перцентиля не больше 1/{@value #SUB_BUCKETS} во всём диапазоне
+ * от наносекунд до часов, а память ограничена и не зависит от числа замеров.
+ * <p>
+ * Корзины — {@link LongAdder}, создаваемые при первом попадании: горячие корзины (типичная
+ * длительность операции) получают отдельную ячейку на поток, и одновременные записи не
+ * конкурируют за одну строку кэша. Максимум — {@link LongAccumulator} по той же причине.
+ * Перцентили считаются по копии счётчиков, сделанной без остановки записи, поэтому
+ * одновременные замеры могут попасть в результат частично.
+ * <p>
+ * {@link #decay(int)} делит счётчики пополам: старые замеры теряют вес, и перцентили
+ * отражают недавний трафик, а не всё время работы. Число и сумма длительностей всех замеров
+ * ведутся отдельно и не затухают — это монотонные счётчики для расчёта скоростей снаружи.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Значения меньше {@code SUB_BUCKETS} лежат в корзинах по одному, старшие — по степеням двойки. */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<>(BUCKETS);
+    /** Максимум с последнего затухания. */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Учитывает один замер; отрицательные длительности считаются нулевыми.
+     */
+    public void record(long durationNanos) {
+        long value = Math.max(0, durationNanos);
+        // Итоги — раньше корзины: снимок, увидевший замер в корзине, увидит его и в итогах
+        totalNanos.add(value);
+        totalCount.increment();
+        bucket(indexOf(value)).increment();
+        max.accumulate(value);
+    }
+
+    private LongAdder bucket(int index) {
+        LongAdder bucket = counts.get(index);
+        if (bucket == null) {
+            LongAdder created = new LongAdder();
+            bucket = counts.compareAndExchange(index, null, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Делит все счётчики на {@code 2^halvings}. Замеры, записанные одновременно, не теряются.
+     */
+    public void decay(int halvings) {
+        if (halvings <= 0) {
+            return;
+        }
+        int shift = Math.min(halvings, Long.SIZE - 1);
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = counts.get(i);
+            if (bucket != null) {
+                // Инкременты между сбросом и возвратом остатка сохраняются в ячейках
+                bucket.add(bucket.sumThenReset() >>> shift);
+            }
+        }
+        // Максимум дальше оценивается по самой старшей непустой корзине
+        max.reset();
+    }
+
+    /** Удаляет все замеры, включая счётчики с момента старта. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = counts.get(i);
+            if (bucket != null) {
+                bucket.reset();
+            }
+        }
+        max.reset();
+        totalCount.reset();
+        totalNanos.reset();
+    }
+
+    /**
+     * Перцентили p50/p90/p99/p99.9 и максимум по текущим счётчикам.
+     * Перцентиль — верхняя граница корзины, но не больше максимума.
+     */
+    public LatencySummary summary() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        int highest = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            LongAdder bucket = counts.get(i);
+            long c = bucket != null ? bucket.sum() : 0;
+            snapshot[i] = c;
+            total += c;
+            if (c != 0) {
+                highest = i;
+            }
+        }
+        // Итоги читаются после корзин, поэтому счётчик с момента старта не меньше взвешенного
+        long lifetimeCount = totalCount.sum();
+        double lifetimeMillis = toMillis(totalNanos.sum());
+        if (total == 0) {
+            return lifetimeCount == 0
+                    ? LatencySummary.EMPTY
+                    : new LatencySummary(0, 0.0, 0.0, 0.0, 0.0, 0.0, lifetimeCount, lifetimeMillis);
+        }
+        long maxNanos = Math.max(max.get(), lowestValue(highest));
+        return new LatencySummary(
+                total,
+                toMillis(valueAt(snapshot, total, 0.50, maxNanos)),
+                toMillis(valueAt(snapshot, total, 0.90, maxNanos)),
+                toMillis(valueAt(snapshot, total, 0.99, maxNanos)),
+                toMillis(valueAt(snapshot, total, 0.999, maxNanos)),
+                toMillis(maxNanos),
+                lifetimeCount,
+                lifetimeMillis);
+    }
+
+    private static long valueAt(long[] snapshot, long total, double quantile, long maxNanos) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+        return mantissa << shift;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return lowestValue(index) + (1L << shift) - 1;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
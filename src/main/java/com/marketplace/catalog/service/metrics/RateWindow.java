@@ -0,0 +1,76 @@
+package com.marketplace.catalog.service.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчик событий по секундам в кольцевом буфере: сколько событий было за последние N секунд.
+ * <p>
+ * Ячейка кольца — секунда и её {@link LongAdder}. Событие увеличивает счётчик своей секунды:
+ * у каждого потока своя ячейка сумматора, поэтому одновременные записи в одну секунду
+ * не конкурируют за одну строку кэша. Раз в секунду первый записавший заменяет ячейку
+ * прошлого оборота новой (один CAS ссылки), так что очистка не требует блокировок
+ * и фонового потока, а память постоянна.
+ * <p>
+ * Суммируются только завершённые секунды — текущая ещё набирается и занизила бы скорость.
+ */
+public final class RateWindow {
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int capacity;
+
+    /**
+     * @param seconds длина самого большого окна, которое будет запрашиваться
+     */
+    public RateWindow(int seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Window must be at least one second");
+        }
+        // +1: текущая секунда не должна затирать самую старую из запрашиваемых
+        this.capacity = seconds + 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Учитывает событие в секунде {@code second} (монотонный номер секунды от старта).
+     */
+    public void increment(long second) {
+        int i = (int) (second % capacity);
+        Slot slot = slots.get(i);
+        while (slot == null || slot.second < second) {
+            Slot next = new Slot(second);
+            Slot witness = slots.compareAndExchange(i, slot, next);
+            slot = witness == slot ? next : witness;
+        }
+        // Запоздавшее событие секунды, ячейку которой уже занял следующий оборот, не учитывается
+        if (slot.second == second) {
+            slot.count.increment();
+        }
+    }
+
+    /**
+     * Число событий за {@code seconds} завершённых секунд перед {@code nowSecond}.
+     */
+    public long sum(long nowSecond, int seconds) {
+        if (seconds >= capacity) {
+            throw new IllegalArgumentException("Window is longer than " + (capacity - 1) + " seconds");
+        }
+        long total = 0;
+        for (long s = Math.max(0, nowSecond - seconds); s < nowSecond; s++) {
+            Slot slot = slots.get((int) (s % capacity));
+            if (slot != null && slot.second == s) {
+                total += slot.count.sum();
+            }
+        }
+        return total;
+    }
+
+    private static final class Slot {
+        final long second;
+        final LongAdder count = new LongAdder();
+
+        Slot(long second) {
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.marketplace.catalog.web.dto;
+
+import java.util.Map;
+
+/**
+ * DTO метрик HTTP-запросов одной пары «маршрут × метод».
+ *
+ * @param statuses число ответов по классам статусов ({@code "2xx"} и т.д.), только ненулевые
+ */
+public record HttpEndpointDto(
+        String route,
+        String method,
+        long requests,
+        long inFlight,
+        Map<String, Long> statuses,
+        long requestBytes,
+        long responseBytes,
+        LatencyDto latency
+) {}
@@ -0,0 +1,6 @@
+package com.marketplace.catalog.web.dto;
+
+public record ImportErrorDto(
+    long row,
+    String message
+) {}
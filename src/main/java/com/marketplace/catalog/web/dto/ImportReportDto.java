@@ -0,0 +1,12 @@
+package com.marketplace.catalog.web.dto;
+
+import java.util.List;
+
+public record ImportReportDto(
+    long totalRows,
+    long importedRows,
+    long rejectedRows,
+    long durationMillis,
+    double rowsPerSecond,
+    List<ImportErrorDto> errors
+) {}
@@ -0,0 +1,13 @@
+package com.marketplace.catalog.web.dto;
+
+/**
+ * DTO распределения длительностей операции (в миллисекундах).
+ */
+public record LatencyDto(
+        long count,
+        double p50,
+        double p90,
+        double p99,
+        double p999,
+        double max
+) {}
@@ -1,5 +1,7 @@
 package com.marketplace.catalog.web.dto;
 
+import java.util.List;
+
 /**
  * DTO для метрик каталога.
  */
@@ -9,6 +11,32 @@ public record MetricsDto(
         long deleteCount,
         long searchCount,
         long cacheHitCount,
+        long coalescedSearchCount,
+        long byIdHitCount,
+        long byIdMissCount,
         double averageSearchTimeMillis,
-        double cacheHitRatio
+        double cacheHitRatio,
+        long cacheEntries,
+        long cacheEstimatedBytes,
+        long cacheEvictionCount,
+        long textIndexTrigrams,
+        long textIndexPostings,
+        long exportCount,
+        long exportedRows,
+        long exportedBytes,
+        double exportRowsPerSecond,
+        double exportBytesPerSecond,
+        LatencyDto searchHitLatency,
+        LatencyDto searchMissLatency,
+        LatencyDto createLatency,
+        LatencyDto updateLatency,
+        LatencyDto deleteLatency,
+        LatencyDto loginLatency,
+        WindowRatesDto searchRate,
+        WindowRatesDto cacheHitRate,
+        WindowRatesDto recentCacheHitRatio,
+        WindowRatesDto createRate,
+        WindowRatesDto updateRate,
+        WindowRatesDto deleteRate,
+        List<HttpEndpointDto> httpEndpoints
 ) {}
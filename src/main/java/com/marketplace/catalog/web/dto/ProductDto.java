@@ -8,5 +8,6 @@ public record ProductDto (
     String brand,
     String category,
     BigDecimal price,
-    String description
+    String description,
+    Long version
 ) {}
@@ -0,0 +1,8 @@
+package com.marketplace.catalog.web.dto;
+
+import java.util.List;
+
+public record ProductPageDto(
+    List<ProductDto> items,
+    String nextCursor
+) {}
@@ -0,0 +1,10 @@
+package com.marketplace.catalog.web.dto;
+
+/**
+ * DTO значения метрики за последние 1, 5 и 15 минут.
+ */
+public record WindowRatesDto(
+        double oneMinute,
+        double fiveMinutes,
+        double fifteenMinutes
+) {}
@@ -0,0 +1,137 @@
+package com.marketplace.catalog.web.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ответ, который считает байты тела, записанные сервлетом через поток или writer.
+ * <p>
+ * Writer кодирует символы в тот же считающий поток, поэтому учитываются байты,
+ * а не символы. Ошибки, отправленные через {@code sendError}, пишет контейнер — их тело не учитывается.
+ */
+final class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private CountingOutputStream output;
+    private PrintWriter writer;
+
+    CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        return stream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (output != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(stream(), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flushWriter();
+        super.flushBuffer();
+    }
+
+    /**
+     * Сбрасывает ответ вместе с обёртками: после сброса сервлет может выбрать writer вместо
+     * потока (так отвечают ошибкой после неудачной выгрузки), а символы, оставшиеся
+     * в буфере прежнего writer'а, не попадут в новое тело.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        discardBody();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        discardBody();
+    }
+
+    /** Тело, записанное до сброса, клиенту не уйдёт и не учитывается. */
+    private void discardBody() {
+        output = null;
+        writer = null;
+    }
+
+    /** Дописывает буфер writer'а в ответ. */
+    void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    long bodyBytes() {
+        return output != null ? output.count : 0;
+    }
+
+    private CountingOutputStream stream() throws IOException {
+        if (output == null) {
+            output = new CountingOutputStream(super.getOutputStream());
+        }
+        return output;
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
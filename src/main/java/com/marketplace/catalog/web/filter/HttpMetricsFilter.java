@@ -0,0 +1,67 @@
+package com.marketplace.catalog.web.filter;
+
+import com.marketplace.catalog.config.AppContext;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
+import com.marketplace.catalog.web.metrics.HttpRoute;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Учитывает каждый HTTP-запрос в {@link HttpMetrics} по шаблону маршрута и методу:
+ * длительность, итоговый статус, объём тела запроса и ответа, число запросов в обработке.
+ * <p>
+ * Если сервлет выбросил исключение, запрос учитывается как 500.
+ */
+@WebFilter(filterName = "HttpMetricsFilter", urlPatterns = "/*")
+public class HttpMetricsFilter implements Filter {
+
+    private HttpMetrics httpMetrics;
+
+    public HttpMetricsFilter() {
+    }
+
+    public HttpMetricsFilter(HttpMetrics httpMetrics) {
+        this.httpMetrics = httpMetrics;
+    }
+
+    @Override
+    public void init(FilterConfig config) {
+        AppContext ctx = (AppContext) config.getServletContext().getAttribute("appContext");
+        this.httpMetrics = ctx.getHttpMetrics();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest req) || !(response instanceof HttpServletResponse resp)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpMetrics.Endpoint endpoint = httpMetrics.endpoint(
+                HttpRoute.resolve(req.getServletPath(), req.getPathInfo()), req.getMethod());
+        CountingRequestWrapper countingReq = new CountingRequestWrapper(req);
+        CountingResponseWrapper countingResp = new CountingResponseWrapper(resp);
+
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        long started = System.nanoTime();
+        endpoint.started();
+        try {
+            chain.doFilter(countingReq, countingResp);
+            countingResp.flushWriter();
+            status = resp.getStatus();
+        } finally {
+            endpoint.finished(status, countingReq.bodyBytes(), countingResp.bodyBytes(),
+                    System.nanoTime() - started);
+        }
+    }
+}
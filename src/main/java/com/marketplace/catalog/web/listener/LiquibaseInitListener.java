@@ -2,6 +2,7 @@ package com.marketplace.catalog.web.listener;
 
 import com.marketplace.catalog.config.AppConfig;
 import com.marketplace.catalog.config.Config;
+import com.marketplace.catalog.config.RepositoryType;
 import com.marketplace.catalog.db.ConnectionFactory;
 import com.marketplace.catalog.db.LiquibaseRunner;
 import jakarta.servlet.ServletContextEvent;
@@ -14,10 +15,13 @@ public class LiquibaseInitListener implements ServletContextListener {
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         Config config = new AppConfig();
-        ConnectionFactory connectionFactory = new ConnectionFactory(config);
-
-        LiquibaseRunner runner = new LiquibaseRunner(config, connectionFactory);
-        runner.migrate();
+        if (config.getRepositoryType() == RepositoryType.MEMORY) {
+            return; // схема БД не нужна
+        }
+        try (ConnectionFactory connectionFactory = new ConnectionFactory(config)) {
+            LiquibaseRunner runner = new LiquibaseRunner(config, connectionFactory);
+            runner.migrate();
+        }
     }
 
     @Override
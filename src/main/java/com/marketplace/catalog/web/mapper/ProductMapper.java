@@ -13,10 +13,12 @@ public interface ProductMapper {
     ProductDto toDto(Product product);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "category", expression = "java(request.getCategory())")
     Product fromRequest(ProductRequest request);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "category", expression = "java(request.getCategory())")
     void updateProduct(@MappingTarget Product product, ProductRequest request);
 }
@@ -0,0 +1,178 @@
+package com.marketplace.catalog.web.metrics;
+
+import com.marketplace.catalog.service.LatencySummary;
+import com.marketplace.catalog.service.metrics.DecaySchedule;
+import com.marketplace.catalog.service.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Метрики HTTP-запросов по маршруту и методу: число запросов, запросы в обработке,
+ * классы статусов, объём тела запроса и ответа, распределение длительностей.
+ * <p>
+ * Пары «маршрут × метод» фиксированы ({@link HttpRoute} и {@link #METHODS}), поэтому
+ * счётчики лежат в массиве по индексу и создаются при первом запросе: память ограничена,
+ * а неиспользуемые пары не занимают места под гистограмму. Запись — без блокировок.
+ */
+public final class HttpMetrics {
+
+    /** Методы, которые попадают в метки; остальные учитываются как {@link #OTHER_METHOD}. */
+    static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"};
+    static final String OTHER_METHOD = "OTHER";
+    /** Классы статусов 1xx..5xx. */
+    private static final int STATUS_CLASSES = 5;
+
+    private static final HttpRoute[] ROUTES = HttpRoute.values();
+    private static final int METHOD_SLOTS = METHODS.length + 1;
+
+    private final AtomicReferenceArray<Endpoint> endpoints =
+            new AtomicReferenceArray<>(ROUTES.length * METHOD_SLOTS);
+    private final DecaySchedule latencyDecay;
+
+    public HttpMetrics() {
+        this(Duration.ZERO);
+    }
+
+    /**
+     * @param latencyDecay интервал полураспада гистограмм длительностей; {@link Duration#ZERO} — без затухания
+     */
+    public HttpMetrics(Duration latencyDecay) {
+        this(latencyDecay, System::nanoTime);
+    }
+
+    HttpMetrics(Duration latencyDecay, LongSupplier nanoClock) {
+        this.latencyDecay = new DecaySchedule(latencyDecay, nanoClock);
+    }
+
+    /**
+     * Счётчики пары «маршрут × метод», создаются при первом обращении.
+     */
+    public Endpoint endpoint(HttpRoute route, String method) {
+        int methodSlot = methodSlot(method);
+        int i = route.ordinal() * METHOD_SLOTS + methodSlot;
+        Endpoint endpoint = endpoints.get(i);
+        if (endpoint == null) {
+            Endpoint created = new Endpoint(route, methodLabel(methodSlot));
+            endpoint = endpoints.compareAndExchange(i, null, created);
+            if (endpoint == null) {
+                endpoint = created;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * Состояние всех пар, по которым уже были запросы, в порядке маршрутов и методов.
+     */
+    public List<EndpointSnapshot> snapshot() {
+        int halvings = latencyDecay.claimHalvings();
+        List<EndpointSnapshot> result = new ArrayList<>();
+        for (int i = 0; i < endpoints.length(); i++) {
+            Endpoint endpoint = endpoints.get(i);
+            if (endpoint != null) {
+                endpoint.latency.decay(halvings);
+                result.add(endpoint.snapshot());
+            }
+        }
+        return result;
+    }
+
+    private static int methodSlot(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return METHODS.length;
+    }
+
+    private static String methodLabel(int slot) {
+        return slot < METHODS.length ? METHODS[slot] : OTHER_METHOD;
+    }
+
+    /**
+     * Счётчики одной пары «маршрут × метод».
+     */
+    public static final class Endpoint {
+        private final HttpRoute route;
+        private final String method;
+
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder[] statusClasses = new LongAdder[STATUS_CLASSES];
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Endpoint(HttpRoute route, String method) {
+            this.route = route;
+            this.method = method;
+            for (int i = 0; i < STATUS_CLASSES; i++) {
+                statusClasses[i] = new LongAdder();
+            }
+        }
+
+        /** Запрос начал обрабатываться. */
+        public void started() {
+            inFlight.increment();
+        }
+
+        /**
+         * Запрос обработан.
+         *
+         * @param status итоговый HTTP-статус; вне 100..599 учитывается как 5xx
+         */
+        public void finished(int status, long requestBodyBytes, long responseBodyBytes, long durationNanos) {
+            latency.record(durationNanos);
+            int statusClass = status / 100 - 1;
+            statusClasses[statusClass >= 0 && statusClass < STATUS_CLASSES ? statusClass : STATUS_CLASSES - 1]
+                    .increment();
+            requestBytes.add(requestBodyBytes);
+            responseBytes.add(responseBodyBytes);
+            requests.increment();
+            inFlight.decrement();
+        }
+
+        private EndpointSnapshot snapshot() {
+            long[] statuses = new long[STATUS_CLASSES];
+            for (int i = 0; i < STATUS_CLASSES; i++) {
+                statuses[i] = statusClasses[i].sum();
+            }
+            return new EndpointSnapshot(
+                    route.template(),
+                    method,
+                    requests.sum(),
+                    inFlight.sum(),
+                    statuses,
+                    requestBytes.sum(),
+                    responseBytes.sum(),
+                    latency.summary());
+        }
+    }
+
+    /**
+     * Значения счётчиков пары «маршрут × метод».
+     *
+     * @param statusClasses число ответов по классам: индекс 0 — 1xx, ..., 4 — 5xx
+     */
+    public record EndpointSnapshot(
+            String route,
+            String method,
+            long requests,
+            long inFlight,
+            long[] statusClasses,
+            long requestBytes,
+            long responseBytes,
+            LatencySummary latency
+    ) {
+        /** Число ответов класса {@code Nxx}, {@code n} — от 1 до 5. */
+        public long statusClass(int n) {
+            return statusClasses[n - 1];
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.marketplace.catalog.web.metrics;
+
+/**
+ * Шаблоны маршрутов для меток HTTP-метрик.
+ * <p>
+ * Набор закрыт: id и неизвестные пути сводятся к шаблону или к {@link #OTHER},
+ * поэтому число временных рядов не растёт от содержимого запросов.
+ */
+public enum HttpRoute {
+    PRODUCTS("/api/products"),
+    PRODUCT_BY_ID("/api/products/{id}"),
+    AUTH_LOGIN("/api/auth/login"),
+    AUTH_LOGOUT("/api/auth/logout"),
+    AUTH_ME("/api/auth/me"),
+    ADMIN_EXPORT("/api/admin/products/export"),
+    ADMIN_IMPORT("/api/admin/products/import"),
+    METRICS("/api/metrics"),
+    PROMETHEUS("/metrics"),
+    OTHER("other");
+
+    private final String template;
+
+    HttpRoute(String template) {
+        this.template = template;
+    }
+
+    public String template() {
+        return template;
+    }
+
+    /**
+     * Определяет маршрут по сопоставлению сервлета.
+     *
+     * @param servletPath {@code HttpServletRequest#getServletPath()}
+     * @param pathInfo    {@code HttpServletRequest#getPathInfo()}, может быть null
+     */
+    public static HttpRoute resolve(String servletPath, String pathInfo) {
+        boolean root = pathInfo == null || "/".equals(pathInfo);
+        switch (servletPath) {
+            case "/api/products":
+                if (root) return PRODUCTS;
+                // Один сегмент после /api/products — это id (корректность проверит сервлет)
+                return pathInfo.indexOf('/', 1) < 0 ? PRODUCT_BY_ID : OTHER;
+            case "/api/auth":
+                if ("/login".equals(pathInfo)) return AUTH_LOGIN;
+                if ("/logout".equals(pathInfo)) return AUTH_LOGOUT;
+                if ("/me".equals(pathInfo)) return AUTH_ME;
+                return OTHER;
+            case "/api/admin/products":
+                if ("/export".equals(pathInfo)) return ADMIN_EXPORT;
+                if ("/import".equals(pathInfo)) return ADMIN_IMPORT;
+                return OTHER;
+            case "/api/metrics":
+                return root ? METRICS : OTHER;
+            case "/metrics":
+                return root ? PROMETHEUS : OTHER;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.marketplace.catalog.web.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Запись метрик в текстовом формате Prometheus (exposition format 0.0.4) прямо в поток байтов.
+ * <p>
+ * Имена, подписи и числа кодируются в собственный буфер посимвольно, без промежуточных
+ * {@link String} и {@link StringBuilder}: частый опрос не создаёт мусора, кроме одного
+ * буфера на ответ. Имена и значения меток должны быть ASCII без символов, требующих
+ * экранирования, — здесь они всегда константы.
+ */
+public final class PrometheusTextWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int BUFFER_SIZE = 8192;
+    /** Знаков после точки у дробных значений. */
+    private static final int FRACTION_DIGITS = 9;
+    private static final long FRACTION_SCALE = 1_000_000_000L;
+    /** Больше этого значения дробная часть не важна, а целая не помещается в long. */
+    private static final double MAX_EXACT = 1e15;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] digits = new byte[20];
+    private int position;
+
+    public PrometheusTextWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Строки {@code # HELP} и {@code # TYPE} семейства метрик.
+     *
+     * @param type counter, gauge или summary
+     */
+    public PrometheusTextWriter family(String name, String type, String help) throws IOException {
+        ascii("# HELP ").ascii(name).write(' ').ascii(help).write('\n');
+        return ascii("# TYPE ").ascii(name).write(' ').ascii(type).write('\n');
+    }
+
+    /** Значение без меток. */
+    public PrometheusTextWriter sample(String name, double value) throws IOException {
+        ascii(name).write(' ');
+        return number(value).write('\n');
+    }
+
+    /** Значение с одной меткой. */
+    public PrometheusTextWriter sample(String name, String label, String labelValue,
+                                       double value) throws IOException {
+        ascii(name).write('{');
+        label(label, labelValue).write('}').write(' ');
+        return number(value).write('\n');
+    }
+
+    /** Значение с двумя метками. */
+    public PrometheusTextWriter sample(String name, String label1, String labelValue1,
+                                       String label2, String labelValue2,
+                                       double value) throws IOException {
+        ascii(name).write('{');
+        label(label1, labelValue1).write(',');
+        label(label2, labelValue2).write('}').write(' ');
+        return number(value).write('\n');
+    }
+
+    /** Значение с тремя метками. */
+    public PrometheusTextWriter sample(String name, String label1, String labelValue1,
+                                       String label2, String labelValue2,
+                                       String label3, String labelValue3,
+                                       double value) throws IOException {
+        ascii(name).write('{');
+        label(label1, labelValue1).write(',');
+        label(label2, labelValue2).write(',');
+        label(label3, labelValue3).write('}').write(' ');
+        return number(value).write('\n');
+    }
+
+    /** Дописывает буфер в поток. Сам поток не закрывается. */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private PrometheusTextWriter label(String name, String value) throws IOException {
+        return ascii(name).write('=').write('"').ascii(value).write('"');
+    }
+
+    private PrometheusTextWriter number(double value) throws IOException {
+        if (Double.isNaN(value)) {
+            return ascii("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return ascii(value > 0 ? "+Inf" : "-Inf");
+        }
+        if (Math.abs(value) >= MAX_EXACT) {
+            // Редкий случай: точность здесь не нужна, а long не хватает
+            return ascii(Double.toString(value));
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        long integer = (long) value;
+        long fraction = Math.round((value - integer) * FRACTION_SCALE);
+        if (fraction == FRACTION_SCALE) {
+            integer++;
+            fraction = 0;
+        }
+        integer(integer);
+        if (fraction == 0) {
+            return this;
+        }
+        write('.');
+        int width = FRACTION_DIGITS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            width--;
+        }
+        for (long scale = pow10(width - 1); scale > 0; scale /= 10) {
+            write((byte) ('0' + fraction / scale % 10));
+        }
+        return this;
+    }
+
+    private void integer(long value) throws IOException {
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (n > 0) {
+            write(digits[--n]);
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private PrometheusTextWriter ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write((byte) s.charAt(i));
+        }
+        return this;
+    }
+
+    private PrometheusTextWriter write(char c) throws IOException {
+        return write((byte) c);
+    }
+
+    private PrometheusTextWriter write(byte b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = b;
+        return this;
+    }
+}
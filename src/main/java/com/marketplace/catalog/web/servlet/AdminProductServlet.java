@@ -0,0 +1,274 @@
+package com.marketplace.catalog.web.servlet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.marketplace.catalog.config.AppContext;
+import com.marketplace.catalog.exception.ProductImportException;
+import com.marketplace.catalog.exception.ProductValidationException;
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.service.ProductBulkService;
+import com.marketplace.catalog.web.dto.ErrorResponse;
+import com.marketplace.catalog.web.dto.ImportErrorDto;
+import com.marketplace.catalog.web.dto.ImportReportDto;
+import com.marketplace.catalog.web.dto.ProductRequest;
+import com.marketplace.catalog.web.mapper.ProductMapper;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Массовые операции с каталогом для администратора.
+ * <p>
+ * {@code POST /api/admin/products/import?format=csv|ndjson} — импорт из тела запроса;
+ * {@code GET /api/admin/products/export?format=csv|ndjson&category=...} — выгрузка каталога.
+ */
+@WebServlet(name = "AdminProductServlet", urlPatterns = "/api/admin/products/*")
+public class AdminProductServlet extends HttpServlet {
+
+    private static final String ATTR_CURRENT_USER = "currentUser";
+
+    private static final String PATH_IMPORT = "/import";
+    private static final String PATH_EXPORT = "/export";
+
+    private static final String PARAM_FORMAT   = "format";
+    private static final String PARAM_CATEGORY = "category";
+
+    private static final String CONTENT_TYPE_CSV    = "text/csv";
+    private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+
+    private static final String MSG_NOT_AUTHORIZED   = "Not authorized";
+    private static final String MSG_LOGIN_REQUIRED   = "Login required";
+    private static final String MSG_ADMIN_REQUIRED   = "Admin role required";
+    private static final String MSG_NOT_FOUND        = "Not found";
+    private static final String MSG_UNSUPPORTED      = "Unsupported format";
+    private static final String MSG_INVALID_CATEGORY = "Invalid category value";
+    private static final String MSG_IMPORT_FAILED    = "Import failed";
+    private static final String MSG_NOT_IMPLEMENTED  = "Not supported by the configured repository";
+    private static final String MSG_INTERNAL_ERROR   = "Internal server error";
+    private static final String MSG_MALFORMED_JSON   = "malformed JSON: ";
+
+    private ProductBulkService bulkService;
+    private ObjectMapper objectMapper;
+    private ProductMapper productMapper;
+    private Validator validator;
+    private ObjectReader productRequestReader;
+
+    public AdminProductServlet() {
+    }
+
+    public AdminProductServlet(ProductBulkService bulkService,
+                               ObjectMapper objectMapper,
+                               ProductMapper productMapper,
+                               Validator validator) {
+        this.bulkService = bulkService;
+        this.objectMapper = objectMapper;
+        this.productMapper = productMapper;
+        this.validator = validator;
+        this.productRequestReader = objectMapper.readerFor(ProductRequest.class);
+    }
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        AppContext ctx = (AppContext) config.getServletContext().getAttribute("appContext");
+
+        this.bulkService   = ctx.getProductBulkService();
+        this.objectMapper  = ctx.getObjectMapper();
+        this.productMapper = ctx.getProductMapper();
+        this.validator     = ctx.getValidator();
+        this.productRequestReader = objectMapper.readerFor(ProductRequest.class);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        prepareJson(resp);
+
+        User user = requireAdmin(req, resp);
+        if (user == null) {
+            return;
+        }
+        if (!PATH_EXPORT.equals(req.getPathInfo())) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, MSG_NOT_FOUND, List.of(String.valueOf(req.getPathInfo())));
+            return;
+        }
+
+        BulkFormat format = parseFormatOrRespond(req, resp);
+        if (format == null) {
+            return;
+        }
+        Category category = null;
+        String rawCategory = req.getParameter(PARAM_CATEGORY);
+        if (rawCategory != null && !rawCategory.isBlank()) {
+            try {
+                category = Category.valueOf(rawCategory.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                sendError(resp, HttpServletResponse.SC_BAD_REQUEST, MSG_INVALID_CATEGORY, List.of(rawCategory));
+                return;
+            }
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(format == BulkFormat.NDJSON ? CONTENT_TYPE_NDJSON : CONTENT_TYPE_CSV);
+        resp.setHeader("Content-Disposition",
+                "attachment; filename=\"products." + format.name().toLowerCase() + "\"");
+        try {
+            bulkService.export(resp.getOutputStream(), format, category);
+        } catch (UnsupportedOperationException e) {
+            // Отказ приходит до первой записи в поток, ответ ещё не отправлен
+            resp.reset();
+            prepareJson(resp);
+            sendError(resp, HttpServletResponse.SC_NOT_IMPLEMENTED, MSG_NOT_IMPLEMENTED, List.of(e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Если часть выгрузки уже ушла клиенту, статус не поменять: ответ просто обрывается
+            if (!resp.isCommitted()) {
+                resp.reset();
+                prepareJson(resp);
+                sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, MSG_INTERNAL_ERROR,
+                        List.of(String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        prepareJson(resp);
+
+        User user = requireAdmin(req, resp);
+        if (user == null) {
+            return;
+        }
+        if (!PATH_IMPORT.equals(req.getPathInfo())) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, MSG_NOT_FOUND, List.of(String.valueOf(req.getPathInfo())));
+            return;
+        }
+
+        BulkFormat format = parseFormatOrRespond(req, resp);
+        if (format == null) {
+            return;
+        }
+
+        try {
+            ImportResult result;
+            if (format == BulkFormat.NDJSON) {
+                result = bulkService.importNdjson(req.getInputStream(), this::decodeProductLine, user.getLogin());
+            } else {
+                if (req.getCharacterEncoding() == null) {
+                    req.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                }
+                result = bulkService.importCsv(req.getReader(), user.getLogin());
+            }
+
+            resp.setStatus(HttpServletResponse.SC_OK);
+            objectMapper.writeValue(resp.getWriter(), toDto(result));
+        } catch (ProductImportException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, MSG_IMPORT_FAILED, List.of(e.getMessage()));
+        } catch (UnsupportedOperationException e) {
+            sendError(resp, HttpServletResponse.SC_NOT_IMPLEMENTED, MSG_NOT_IMPLEMENTED, List.of(e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, MSG_INTERNAL_ERROR,
+                    List.of(String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Разбор строки NDJSON с теми же проверками, что у {@code POST /api/products}.
+     * Вызывается из потоков конвейера импорта.
+     */
+    private Product decodeProductLine(String line) {
+        ProductRequest request;
+        try {
+            request = productRequestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new ProductValidationException(MSG_MALFORMED_JSON + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ProductValidationException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return productMapper.fromRequest(request);
+    }
+
+    private static ImportReportDto toDto(ImportResult result) {
+        List<ImportErrorDto> errors = result.errors().stream()
+                .map(e -> new ImportErrorDto(e.row(), e.message()))
+                .toList();
+        return new ImportReportDto(
+                result.totalRows(),
+                result.importedRows(),
+                result.rejectedRows(),
+                TimeUnit.NANOSECONDS.toMillis(result.durationNanos()),
+                result.rowsPerSecond(),
+                errors);
+    }
+
+    /**
+     * Формат из параметра {@code format}; по умолчанию CSV.
+     */
+    private BulkFormat parseFormatOrRespond(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String raw = req.getParameter(PARAM_FORMAT);
+        if (raw == null || raw.isBlank()) {
+            return BulkFormat.CSV;
+        }
+        try {
+            return BulkFormat.valueOf(raw.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, MSG_UNSUPPORTED, List.of(raw));
+            return null;
+        }
+    }
+
+    private User requireAdmin(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        User user = getCurrentUser(req);
+        if (user == null) {
+            sendError(resp, HttpServletResponse.SC_UNAUTHORIZED, MSG_NOT_AUTHORIZED, List.of(MSG_LOGIN_REQUIRED));
+            return null;
+        }
+        if (user.getRole() != Role.ADMIN) {
+            sendError(resp, HttpServletResponse.SC_FORBIDDEN, MSG_ADMIN_REQUIRED, null);
+            return null;
+        }
+        return user;
+    }
+
+    private User getCurrentUser(HttpServletRequest req) {
+        HttpSession session = req.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        return (User) session.getAttribute(ATTR_CURRENT_USER);
+    }
+
+    private void sendError(HttpServletResponse resp, int status, String message, List<String> details) throws IOException {
+        resp.setStatus(status);
+        objectMapper.writeValue(resp.getWriter(), new ErrorResponse(message, details));
+    }
+
+    private void prepareJson(HttpServletResponse resp) {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+    }
+}
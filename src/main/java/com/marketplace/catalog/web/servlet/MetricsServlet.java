@@ -4,9 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marketplace.catalog.config.AppContext;
 import com.marketplace.catalog.model.Role;
 import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.service.LatencySummary;
 import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.MetricsSnapshot;
+import com.marketplace.catalog.service.WindowRates;
 import com.marketplace.catalog.web.dto.ErrorResponse;
+import com.marketplace.catalog.web.dto.HttpEndpointDto;
+import com.marketplace.catalog.web.dto.LatencyDto;
 import com.marketplace.catalog.web.dto.MetricsDto;
+import com.marketplace.catalog.web.dto.WindowRatesDto;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -16,7 +23,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @WebServlet(name = "MetricsServlet", urlPatterns = "/api/metrics")
 public class MetricsServlet extends HttpServlet {
@@ -27,14 +36,18 @@ public class MetricsServlet extends HttpServlet {
     private static final String MSG_LOGIN_REQUIRED   = "Login required";
     private static final String MSG_ADMIN_REQUIRED   = "Admin role required";
 
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
     private Metrics metrics;
+    private HttpMetrics httpMetrics;
     private ObjectMapper objectMapper;
 
     public MetricsServlet() {
     }
 
-    public MetricsServlet(Metrics metrics, ObjectMapper objectMapper) {
+    public MetricsServlet(Metrics metrics, HttpMetrics httpMetrics, ObjectMapper objectMapper) {
         this.metrics = metrics;
+        this.httpMetrics = httpMetrics;
         this.objectMapper = objectMapper;
     }
 
@@ -44,6 +57,7 @@ public class MetricsServlet extends HttpServlet {
         AppContext ctx = (AppContext) config.getServletContext().getAttribute("appContext");
 
         this.metrics      = ctx.getMetrics();
+        this.httpMetrics  = ctx.getHttpMetrics();
         this.objectMapper = ctx.getObjectMapper();
     }
 
@@ -61,20 +75,81 @@ public class MetricsServlet extends HttpServlet {
             return;
         }
 
+        MetricsSnapshot snapshot = metrics.snapshot();
         MetricsDto dto = new MetricsDto(
-                metrics.getCreateCount(),
-                metrics.getUpdateCount(),
-                metrics.getDeleteCount(),
-                metrics.getSearchCount(),
-                metrics.getCacheHitCount(),
-                metrics.getAverageSearchTimeMillis(),
-                metrics.getCacheHitRatio()
+                snapshot.createCount(),
+                snapshot.updateCount(),
+                snapshot.deleteCount(),
+                snapshot.searchCount(),
+                snapshot.cacheHitCount(),
+                snapshot.coalescedSearchCount(),
+                snapshot.byIdHitCount(),
+                snapshot.byIdMissCount(),
+                snapshot.averageSearchTimeMillis(),
+                snapshot.cacheHitRatio(),
+                snapshot.cacheEntries(),
+                snapshot.cacheEstimatedBytes(),
+                snapshot.cacheEvictionCount(),
+                snapshot.textIndexTrigrams(),
+                snapshot.textIndexPostings(),
+                snapshot.exportCount(),
+                snapshot.exportedRows(),
+                snapshot.exportedBytes(),
+                snapshot.exportRowsPerSecond(),
+                snapshot.exportBytesPerSecond(),
+                toDto(snapshot.searchHitLatency()),
+                toDto(snapshot.searchMissLatency()),
+                toDto(snapshot.createLatency()),
+                toDto(snapshot.updateLatency()),
+                toDto(snapshot.deleteLatency()),
+                toDto(snapshot.loginLatency()),
+                toDto(snapshot.searchRate()),
+                toDto(snapshot.cacheHitRate()),
+                toDto(snapshot.recentCacheHitRatio()),
+                toDto(snapshot.createRate()),
+                toDto(snapshot.updateRate()),
+                toDto(snapshot.deleteRate()),
+                httpMetrics.snapshot().stream()
+                        .map(MetricsServlet::toDto)
+                        .toList()
         );
 
         resp.setStatus(HttpServletResponse.SC_OK);
         objectMapper.writeValue(resp.getWriter(), dto);
     }
 
+    private static LatencyDto toDto(LatencySummary latency) {
+        return new LatencyDto(
+                latency.count(),
+                latency.p50Millis(),
+                latency.p90Millis(),
+                latency.p99Millis(),
+                latency.p999Millis(),
+                latency.maxMillis());
+    }
+
+    private static HttpEndpointDto toDto(HttpMetrics.EndpointSnapshot endpoint) {
+        Map<String, Long> statuses = new LinkedHashMap<>();
+        for (int n = 1; n <= STATUS_CLASSES.length; n++) {
+            if (endpoint.statusClass(n) > 0) {
+                statuses.put(STATUS_CLASSES[n - 1], endpoint.statusClass(n));
+            }
+        }
+        return new HttpEndpointDto(
+                endpoint.route(),
+                endpoint.method(),
+                endpoint.requests(),
+                endpoint.inFlight(),
+                statuses,
+                endpoint.requestBytes(),
+                endpoint.responseBytes(),
+                toDto(endpoint.latency()));
+    }
+
+    private static WindowRatesDto toDto(WindowRates rates) {
+        return new WindowRatesDto(rates.oneMinute(), rates.fiveMinutes(), rates.fifteenMinutes());
+    }
+
     private User getCurrentUser(HttpServletRequest req) {
         HttpSession session = req.getSession(false);
         if (session == null) {
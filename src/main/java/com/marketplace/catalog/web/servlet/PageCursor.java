@@ -0,0 +1,37 @@
+package com.marketplace.catalog.web.servlet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации: id последнего товара страницы в base64url.
+ * Клиент передаёт его обратно в параметре {@code cursor}, не разбирая содержимое.
+ */
+final class PageCursor {
+
+    private static final String PREFIX = "p:";
+
+    private PageCursor() {
+    }
+
+    static String encode(long afterId) {
+        byte[] raw = (PREFIX + afterId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * @return id из курсора или null, если курсор повреждён
+     */
+    static Long decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                return null;
+            }
+            long afterId = Long.parseLong(raw.substring(PREFIX.length()));
+            return afterId >= 0 ? afterId : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.marketplace.catalog.web.servlet;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.marketplace.catalog.config.AppContext;
 import com.marketplace.catalog.exception.ProductValidationException;
+import com.marketplace.catalog.exception.ProductVersionConflictException;
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductPage;
+import com.marketplace.catalog.model.ProductSearchCriteria;
 import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.TextSearchMode;
 import com.marketplace.catalog.model.User;
 import com.marketplace.catalog.service.ProductService;
 import com.marketplace.catalog.web.dto.ErrorResponse;
 import com.marketplace.catalog.web.dto.ProductDto;
+import com.marketplace.catalog.web.dto.ProductPageDto;
 import com.marketplace.catalog.web.dto.ProductRequest;
 import com.marketplace.catalog.web.mapper.ProductMapper;
 import jakarta.servlet.ServletConfig;
@@ -20,14 +28,23 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @WebServlet(name = "ProductServlet", urlPatterns = "/api/products/*")
 public class ProductServlet extends HttpServlet {
 
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_PAGE_LIMIT     = 1000;
+    private static final int MAX_IDS            = 1000;
+    /** Значение {@code If-Match}, при котором версия товара не проверяется. */
+    private static final long ANY_VERSION       = -1L;
+
     private ProductService productService;
     private ProductMapper productMapper;
     private ObjectMapper objectMapper;
@@ -71,9 +88,7 @@ public class ProductServlet extends HttpServlet {
             if (isRootPath(req.getPathInfo())) {
                 handleSearchOrList(req, resp);
             } else {
-                sendNotFound(resp,
-                        "GET by id is not supported",
-                        List.of("Use /api/products with filters"));
+                handleGetById(req.getPathInfo(), resp);
             }
         } catch (Exception e) {
             sendInternalError(resp, e);
@@ -99,6 +114,7 @@ public class ProductServlet extends HttpServlet {
             Product saved = productService.createProduct(product, user.getLogin());
 
             resp.setStatus(HttpServletResponse.SC_CREATED);
+            setETag(resp, saved);
             objectMapper.writeValue(resp.getWriter(), productMapper.toDto(saved));
         } catch (ProductValidationException e) {
             sendBadRequest(resp, e.getMessage(), List.of());
@@ -120,6 +136,11 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
+        Long expectedVersion = parseIfMatchOrRespond(req.getHeader("If-Match"), resp);
+        if (expectedVersion == null) {
+            return;
+        }
+
         try {
             ProductRequest productRequest = readAndValidateRequest(req, resp);
             if (productRequest == null) {
@@ -127,6 +148,7 @@ public class ProductServlet extends HttpServlet {
             }
 
             Product productToUpdate = productMapper.fromRequest(productRequest);
+            productToUpdate.setVersion(expectedVersion == ANY_VERSION ? null : expectedVersion);
             var updatedOpt = productService.updateProduct(id, productToUpdate, user.getLogin());
 
             if (updatedOpt.isEmpty()) {
@@ -135,7 +157,10 @@ public class ProductServlet extends HttpServlet {
             }
 
             resp.setStatus(HttpServletResponse.SC_OK);
+            setETag(resp, updatedOpt.get());
             objectMapper.writeValue(resp.getWriter(), productMapper.toDto(updatedOpt.get()));
+        } catch (ProductVersionConflictException e) {
+            sendPreconditionFailed(resp, e);
         } catch (ProductValidationException e) {
             sendBadRequest(resp, e.getMessage(), List.of());
         } catch (Exception e) {
@@ -168,6 +193,11 @@ public class ProductServlet extends HttpServlet {
     }
 
     private void handleSearchOrList(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (hasParam(req, "ids")) {
+            handleIds(req.getParameter("ids"), resp);
+            return;
+        }
+
         Category category = parseCategoryOrRespond(req.getParameter("category"), resp);
         if (category == null && hasParam(req, "category")) {
             return; // ошибка уже отправлена
@@ -185,12 +215,89 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
+        TextSearchMode textMode = parseTextModeOrRespond(req.getParameter("textMode"), resp);
+        if (textMode == null && hasParam(req, "textMode")) {
+            return;
+        }
+
         String brand = req.getParameter("brand");
         String text  = req.getParameter("text");
 
-        List<ProductDto> result = shouldUseSimpleList(category, brand, minPrice, maxPrice, text)
-                ? listAllProducts()
-                : searchProducts(category, brand, minPrice, maxPrice, text);
+        if (hasParam(req, "limit") || hasParam(req, "cursor")) {
+            handlePage(req, resp, new ProductSearchCriteria(category, brand, minPrice, maxPrice, text, textMode));
+            return;
+        }
+
+        if (shouldUseSimpleList(category, brand, minPrice, maxPrice, text)) {
+            streamAllProducts(resp);
+            return;
+        }
+
+        List<ProductDto> result =
+                searchProducts(new ProductSearchCriteria(category, brand, minPrice, maxPrice, text, textMode));
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        objectMapper.writeValue(resp.getWriter(), result);
+    }
+
+    /**
+     * Постраничная выдача: {@code limit} (по умолчанию 50, не больше 1000) и непрозрачный
+     * {@code cursor} из {@code nextCursor} предыдущей страницы. Без этих параметров
+     * ответ — прежний JSON-массив.
+     */
+    private void handlePage(HttpServletRequest req,
+                            HttpServletResponse resp,
+                            ProductSearchCriteria criteria) throws IOException {
+        Integer limit = parseLimitOrRespond(req.getParameter("limit"), resp);
+        if (limit == null) {
+            return;
+        }
+        Long afterId = parseCursorOrRespond(req.getParameter("cursor"), resp);
+        if (afterId == null) {
+            return;
+        }
+
+        ProductPage page = productService.findPage(criteria, afterId, limit);
+        List<ProductDto> items = page.items().stream()
+                .map(productMapper::toDto)
+                .toList();
+        String nextCursor = page.hasNext() ? PageCursor.encode(page.nextAfterId()) : null;
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        objectMapper.writeValue(resp.getWriter(), new ProductPageDto(items, nextCursor));
+    }
+
+    private void handleGetById(String pathInfo, HttpServletResponse resp) throws IOException {
+        Long id = parseAndValidateId(pathInfo, resp);
+        if (id == null) {
+            return;
+        }
+
+        Optional<Product> product = productService.findById(id);
+        if (product.isEmpty()) {
+            sendNotFound(resp, "Product not found", List.of("id=" + id));
+            return;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        setETag(resp, product.get());
+        objectMapper.writeValue(resp.getWriter(), productMapper.toDto(product.get()));
+    }
+
+    /**
+     * Выборка по списку id ({@code ids=3,1,2}, не больше 1000) одним запросом к БД.
+     * Товары возвращаются в порядке id в запросе, отсутствующие пропускаются;
+     * остальные фильтры в этом режиме не применяются.
+     */
+    private void handleIds(String raw, HttpServletResponse resp) throws IOException {
+        List<Long> ids = parseIdsOrRespond(raw, resp);
+        if (ids == null) {
+            return;
+        }
+
+        List<ProductDto> result = productService.findByIds(ids).stream()
+                .map(productMapper::toDto)
+                .toList();
 
         resp.setStatus(HttpServletResponse.SC_OK);
         objectMapper.writeValue(resp.getWriter(), result);
@@ -208,18 +315,43 @@ public class ProductServlet extends HttpServlet {
                 && text == null;
     }
 
-    private List<ProductDto> listAllProducts() {
-        return productService.findAll().stream()
-                .map(productMapper::toDto)
-                .toList();
+    /**
+     * Весь каталог без фильтров: строки из курсора БД по одной преобразуются в DTO
+     * и сразу пишутся в ответ, без промежуточных списков.
+     * <p>
+     * При ошибке посреди выгрузки массив не закрывается: клиент получает заведомо
+     * некорректный JSON, а не усечённый, но валидный список.
+     */
+    private void streamAllProducts(HttpServletResponse resp) throws IOException {
+        // Сброс после каждого элемента не нужен: буфер ответа отдаётся контейнеру по мере заполнения
+        ObjectWriter writer = objectMapper.writerFor(ProductDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(resp.getWriter())
+                // Закрытие генератора не дописывает "]", не закрывает и не сбрасывает writer:
+                // flush зафиксировал бы ответ 200, а так после ошибки ещё можно отправить 500
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)) {
+            gen.writeStartArray();
+            try {
+                productService.forEachProduct(product -> {
+                    try {
+                        writer.writeValue(gen, productMapper.toDto(product));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            gen.writeEndArray();
+        }
     }
 
-    private List<ProductDto> searchProducts(Category category,
-                                            String brand,
-                                            BigDecimal minPrice,
-                                            BigDecimal maxPrice,
-                                            String text) {
-        return productService.search(category, brand, minPrice, maxPrice, text).stream()
+    private List<ProductDto> searchProducts(ProductSearchCriteria criteria) {
+        return productService.search(criteria).stream()
                 .map(productMapper::toDto)
                 .toList();
     }
@@ -301,6 +433,101 @@ public class ProductServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Режим текстового поиска: {@code substring} (по умолчанию) или {@code fulltext}.
+     */
+    private TextSearchMode parseTextModeOrRespond(String raw, HttpServletResponse resp) throws IOException {
+        if (raw == null || raw.isBlank()) {
+            return TextSearchMode.SUBSTRING;
+        }
+        try {
+            return TextSearchMode.valueOf(raw.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            sendBadRequest(resp, "Invalid textMode value", List.of(raw));
+            return null;
+        }
+    }
+
+    private Integer parseLimitOrRespond(String raw, HttpServletResponse resp) throws IOException {
+        if (raw == null || raw.isBlank()) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(raw.trim());
+            if (limit >= 1 && limit <= MAX_PAGE_LIMIT) {
+                return limit;
+            }
+        } catch (NumberFormatException ignored) {
+            // ответ ниже
+        }
+        sendBadRequest(resp, "Invalid limit value", List.of(raw, "1.." + MAX_PAGE_LIMIT));
+        return null;
+    }
+
+    private List<Long> parseIdsOrRespond(String raw, HttpServletResponse resp) throws IOException {
+        String[] parts = raw.split(",");
+        if (raw.isBlank() || parts.length > MAX_IDS) {
+            sendBadRequest(resp, "Invalid ids value", List.of("1.." + MAX_IDS + " comma-separated ids"));
+            return null;
+        }
+        List<Long> ids = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            try {
+                ids.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException e) {
+                sendBadRequest(resp, "Invalid ids value", List.of(part));
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    private Long parseCursorOrRespond(String raw, HttpServletResponse resp) throws IOException {
+        if (raw == null || raw.isBlank()) {
+            return 0L;
+        }
+        Long afterId = PageCursor.decode(raw.trim());
+        if (afterId == null) {
+            sendBadRequest(resp, "Invalid cursor value", List.of(raw));
+        }
+        return afterId;
+    }
+
+    /**
+     * Ожидаемая версия товара из {@code If-Match}: ETag вида {@code "3"}
+     * (слабый {@code W/"3"} тоже принимается). Без заголовка или с {@code *}
+     * обновление выполняется без проверки версии.
+     *
+     * @return версия, {@link #ANY_VERSION} или null, если ответ 400 уже отправлен
+     */
+    private Long parseIfMatchOrRespond(String raw, HttpServletResponse resp) throws IOException {
+        if (raw == null || raw.isBlank() || "*".equals(raw.trim())) {
+            return ANY_VERSION;
+        }
+        String tag = raw.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                long version = Long.parseLong(tag.substring(1, tag.length() - 1));
+                if (version >= 0) {
+                    return version;
+                }
+            } catch (NumberFormatException ignored) {
+                // ответ ниже
+            }
+        }
+        sendBadRequest(resp, "Invalid If-Match header", List.of(raw));
+        return null;
+    }
+
+    private void setETag(HttpServletResponse resp, Product product) {
+        if (product.getVersion() != null) {
+            resp.setHeader("ETag", "\"" + product.getVersion() + "\"");
+        }
+    }
+
     private BigDecimal parsePriceOrRespond(String raw, HttpServletResponse resp) throws IOException {
         if (raw == null || raw.isBlank()) {
             return null;
@@ -344,6 +571,18 @@ public class ProductServlet extends HttpServlet {
         objectMapper.writeValue(resp.getWriter(), new ErrorResponse(message, details));
     }
 
+    private void sendPreconditionFailed(HttpServletResponse resp,
+                                        ProductVersionConflictException e) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+        List<String> details = new ArrayList<>();
+        details.add("id=" + e.getProductId());
+        if (e.getCurrentVersion() != null) {
+            resp.setHeader("ETag", "\"" + e.getCurrentVersion() + "\"");
+            details.add("currentVersion=" + e.getCurrentVersion());
+        }
+        objectMapper.writeValue(resp.getWriter(), new ErrorResponse("Product version mismatch", details));
+    }
+
     private void sendForbidden(HttpServletResponse resp, String message) throws IOException {
         resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
         objectMapper.writeValue(resp.getWriter(), new ErrorResponse(message, null));
@@ -357,6 +596,12 @@ public class ProductServlet extends HttpServlet {
 
     private void sendInternalError(HttpServletResponse resp, Exception e) throws IOException {
         e.printStackTrace();
+        // Если часть ответа уже ушла клиенту, статус не поменять: ответ просто обрывается
+        if (resp.isCommitted()) {
+            return;
+        }
+        resp.reset();
+        prepareJsonResponse(resp);
         resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         objectMapper.writeValue(resp.getWriter(),
                 new ErrorResponse("Internal server error", List.of(e.getMessage())));
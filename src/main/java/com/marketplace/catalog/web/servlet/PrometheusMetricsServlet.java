@@ -0,0 +1,252 @@
+package com.marketplace.catalog.web.servlet;
+
+import com.marketplace.catalog.config.AppContext;
+import com.marketplace.catalog.db.PoolStats;
+import com.marketplace.catalog.service.LatencySummary;
+import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.MetricsSnapshot;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
+import com.marketplace.catalog.web.metrics.PrometheusTextWriter;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Метрики каталога в текстовом формате Prometheus для сборщиков, которые не умеют
+ * входить через сессию. Запрос должен содержать {@code Authorization: Bearer <token>}
+ * с токеном из {@code metrics.prometheus.token}; пока токен не задан, эндпоинт закрыт
+ * и отвечает 404 — открыть метрики без авторизации настройкой по умолчанию нельзя.
+ * <p>
+ * Все значения берутся из одного {@link Metrics#snapshot()} и пишутся прямо в поток ответа.
+ * {@code _count} и {@code _sum} у summary — монотонные счётчики с момента старта, а не
+ * взвешенное число замеров, по которому считаются перцентили: {@code rate()} по ним корректен.
+ */
+@WebServlet(name = "PrometheusMetricsServlet", urlPatterns = "/metrics")
+public class PrometheusMetricsServlet extends HttpServlet {
+
+    private static final Logger log = Logger.getLogger(PrometheusMetricsServlet.class.getName());
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String OPERATION = "operation";
+    private static final String QUANTILE  = "quantile";
+    private static final String LATENCY   = "catalog_operation_latency_seconds";
+
+    private static final String ROUTE        = "route";
+    private static final String METHOD       = "method";
+    private static final String HTTP_LATENCY = "catalog_http_request_duration_seconds";
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private Metrics metrics;
+    private HttpMetrics httpMetrics;
+    private Supplier<PoolStats> poolStats;
+    private byte[] token;
+
+    public PrometheusMetricsServlet() {
+    }
+
+    /**
+     * @param poolStats состояние пула соединений; возвращает null, если пула нет
+     * @param token     токен доступа; пустая строка — эндпоинт закрыт
+     */
+    public PrometheusMetricsServlet(Metrics metrics, HttpMetrics httpMetrics,
+                                    Supplier<PoolStats> poolStats, String token) {
+        this.metrics = metrics;
+        this.httpMetrics = httpMetrics;
+        this.poolStats = poolStats;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        AppContext ctx = (AppContext) config.getServletContext().getAttribute("appContext");
+
+        this.metrics     = ctx.getMetrics();
+        this.httpMetrics = ctx.getHttpMetrics();
+        this.poolStats   = ctx::getPoolStats;
+        this.token       = ctx.getConfig().getPrometheusToken().getBytes(StandardCharsets.UTF_8);
+        if (token.length == 0) {
+            log.warning("metrics.prometheus.token is not set: GET /metrics is disabled");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (token.length == 0) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!authorized(req)) {
+            resp.setHeader("WWW-Authenticate", "Bearer");
+            resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        List<HttpMetrics.EndpointSnapshot> endpoints = httpMetrics.snapshot();
+        PoolStats pool = poolStats.get();
+
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(PrometheusTextWriter.CONTENT_TYPE);
+        PrometheusTextWriter out = new PrometheusTextWriter(resp.getOutputStream());
+        writeOperations(out, snapshot);
+        writeSearch(out, snapshot);
+        writeLatencies(out, snapshot);
+        writeCaches(out, snapshot);
+        writeExports(out, snapshot);
+        writeHttp(out, endpoints);
+        if (pool != null) {
+            writePool(out, pool);
+        }
+        out.flush();
+    }
+
+    private boolean authorized(HttpServletRequest req) {
+        String header = req.getHeader("Authorization");
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        byte[] presented = header.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+        // Сравнение за постоянное время: по задержке нельзя подобрать токен
+        return MessageDigest.isEqual(presented, token);
+    }
+
+    private static void writeOperations(PrometheusTextWriter out, MetricsSnapshot s) throws IOException {
+        out.family("catalog_product_operations_total", "counter", "Product changes by operation.")
+                .sample("catalog_product_operations_total", OPERATION, "create", s.createCount())
+                .sample("catalog_product_operations_total", OPERATION, "update", s.updateCount())
+                .sample("catalog_product_operations_total", OPERATION, "delete", s.deleteCount());
+    }
+
+    private static void writeSearch(PrometheusTextWriter out, MetricsSnapshot s) throws IOException {
+        out.family("catalog_searches_total", "counter", "Product searches.")
+                .sample("catalog_searches_total", s.searchCount())
+                .family("catalog_search_cache_hits_total", "counter", "Searches served from the search cache.")
+                .sample("catalog_search_cache_hits_total", s.cacheHitCount())
+                .family("catalog_search_coalesced_total", "counter",
+                        "Search cache misses that waited for an identical in-flight search.")
+                .sample("catalog_search_coalesced_total", s.coalescedSearchCount())
+                .family("catalog_product_cache_lookups_total", "counter", "Product lookups by id.")
+                .sample("catalog_product_cache_lookups_total", "result", "hit", s.byIdHitCount())
+                .sample("catalog_product_cache_lookups_total", "result", "miss", s.byIdMissCount());
+    }
+
+    private static void writeLatencies(PrometheusTextWriter out, MetricsSnapshot s) throws IOException {
+        out.family(LATENCY, "summary",
+                "Operation latency: recent decayed quantiles, lifetime count and sum.");
+        writeLatency(out, "search_hit", s.searchHitLatency());
+        writeLatency(out, "search_miss", s.searchMissLatency());
+        writeLatency(out, "create", s.createLatency());
+        writeLatency(out, "update", s.updateLatency());
+        writeLatency(out, "delete", s.deleteLatency());
+        writeLatency(out, "login", s.loginLatency());
+
+        out.family("catalog_operation_latency_max_seconds", "gauge", "Recent maximum operation latency.");
+        writeMax(out, "search_hit", s.searchHitLatency());
+        writeMax(out, "search_miss", s.searchMissLatency());
+        writeMax(out, "create", s.createLatency());
+        writeMax(out, "update", s.updateLatency());
+        writeMax(out, "delete", s.deleteLatency());
+        writeMax(out, "login", s.loginLatency());
+    }
+
+    private static void writeLatency(PrometheusTextWriter out, String operation,
+                                     LatencySummary latency) throws IOException {
+        out.sample(LATENCY, OPERATION, operation, QUANTILE, "0.5", seconds(latency.p50Millis()))
+                .sample(LATENCY, OPERATION, operation, QUANTILE, "0.9", seconds(latency.p90Millis()))
+                .sample(LATENCY, OPERATION, operation, QUANTILE, "0.99", seconds(latency.p99Millis()))
+                .sample(LATENCY, OPERATION, operation, QUANTILE, "0.999", seconds(latency.p999Millis()))
+                .sample(LATENCY + "_sum", OPERATION, operation, seconds(latency.totalMillis()))
+                .sample(LATENCY + "_count", OPERATION, operation, latency.totalCount());
+    }
+
+    private static void writeMax(PrometheusTextWriter out, String operation,
+                                 LatencySummary latency) throws IOException {
+        out.sample("catalog_operation_latency_max_seconds", OPERATION, operation, seconds(latency.maxMillis()));
+    }
+
+    private static void writeCaches(PrometheusTextWriter out, MetricsSnapshot s) throws IOException {
+        out.family("catalog_search_cache_entries", "gauge", "Entries in the search cache.")
+                .sample("catalog_search_cache_entries", s.cacheEntries())
+                .family("catalog_search_cache_bytes", "gauge", "Estimated search cache size in bytes.")
+                .sample("catalog_search_cache_bytes", s.cacheEstimatedBytes())
+                .family("catalog_search_cache_evictions_total", "counter", "Search cache evictions.")
+                .sample("catalog_search_cache_evictions_total", s.cacheEvictionCount())
+                .family("catalog_text_index_trigrams", "gauge", "Distinct trigrams in the text index.")
+                .sample("catalog_text_index_trigrams", s.textIndexTrigrams())
+                .family("catalog_text_index_postings", "gauge", "Posting entries in the text index.")
+                .sample("catalog_text_index_postings", s.textIndexPostings());
+    }
+
+    private static void writeExports(PrometheusTextWriter out, MetricsSnapshot s) throws IOException {
+        out.family("catalog_exports_total", "counter", "Catalog exports.")
+                .sample("catalog_exports_total", s.exportCount())
+                .family("catalog_exported_rows_total", "counter", "Products written by exports.")
+                .sample("catalog_exported_rows_total", s.exportedRows())
+                .family("catalog_exported_bytes_total", "counter", "Bytes written by exports.")
+                .sample("catalog_exported_bytes_total", s.exportedBytes());
+    }
+
+    private static void writeHttp(PrometheusTextWriter out,
+                                  List<HttpMetrics.EndpointSnapshot> endpoints) throws IOException {
+        out.family("catalog_http_requests_total", "counter", "HTTP requests by route, method and status class.");
+        for (HttpMetrics.EndpointSnapshot e : endpoints) {
+            for (int n = 1; n <= STATUS_CLASSES.length; n++) {
+                if (e.statusClass(n) > 0) {
+                    out.sample("catalog_http_requests_total", ROUTE, e.route(), METHOD, e.method(),
+                            "status", STATUS_CLASSES[n - 1], e.statusClass(n));
+                }
+            }
+        }
+        out.family("catalog_http_requests_in_flight", "gauge", "HTTP requests being processed.");
+        for (HttpMetrics.EndpointSnapshot e : endpoints) {
+            out.sample("catalog_http_requests_in_flight", ROUTE, e.route(), METHOD, e.method(), e.inFlight());
+        }
+        out.family("catalog_http_request_bytes_total", "counter", "HTTP request body bytes.");
+        for (HttpMetrics.EndpointSnapshot e : endpoints) {
+            out.sample("catalog_http_request_bytes_total", ROUTE, e.route(), METHOD, e.method(), e.requestBytes());
+        }
+        out.family("catalog_http_response_bytes_total", "counter", "HTTP response body bytes.");
+        for (HttpMetrics.EndpointSnapshot e : endpoints) {
+            out.sample("catalog_http_response_bytes_total", ROUTE, e.route(), METHOD, e.method(), e.responseBytes());
+        }
+        out.family(HTTP_LATENCY, "summary",
+                "HTTP request latency: recent decayed quantiles, lifetime count and sum.");
+        for (HttpMetrics.EndpointSnapshot e : endpoints) {
+            LatencySummary latency = e.latency();
+            out.sample(HTTP_LATENCY, ROUTE, e.route(), METHOD, e.method(), QUANTILE, "0.5", seconds(latency.p50Millis()))
+                    .sample(HTTP_LATENCY, ROUTE, e.route(), METHOD, e.method(), QUANTILE, "0.9", seconds(latency.p90Millis()))
+                    .sample(HTTP_LATENCY, ROUTE, e.route(), METHOD, e.method(), QUANTILE, "0.99", seconds(latency.p99Millis()))
+                    .sample(HTTP_LATENCY, ROUTE, e.route(), METHOD, e.method(), QUANTILE, "0.999", seconds(latency.p999Millis()))
+                    .sample(HTTP_LATENCY + "_sum", ROUTE, e.route(), METHOD, e.method(), seconds(latency.totalMillis()))
+                    .sample(HTTP_LATENCY + "_count", ROUTE, e.route(), METHOD, e.method(), latency.totalCount());
+        }
+    }
+
+    private static void writePool(PrometheusTextWriter out, PoolStats pool) throws IOException {
+        out.family("catalog_db_pool_connections", "gauge", "Database pool connections by state.")
+                .sample("catalog_db_pool_connections", "state", "active", pool.active())
+                .sample("catalog_db_pool_connections", "state", "idle", pool.idle())
+                .family("catalog_db_pool_connections_max", "gauge", "Maximum database pool size.")
+                .sample("catalog_db_pool_connections_max", pool.max())
+                .family("catalog_db_pool_pending_threads", "gauge", "Threads waiting for a database connection.")
+                .sample("catalog_db_pool_pending_threads", pool.pendingThreads());
+    }
+
+    private static double seconds(double millis) {
+        return millis / MILLIS_PER_SECOND;
+    }
+}
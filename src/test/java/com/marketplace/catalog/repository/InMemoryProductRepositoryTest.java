@@ -0,0 +1,113 @@
+package com.marketplace.catalog.repository;
+
+import com.marketplace.catalog.exception.ProductVersionConflictException;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.repository.impl.memory.InMemoryProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.marketplace.catalog.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryProductRepositoryTest {
+
+    private final InMemoryProductRepository repo = new InMemoryProductRepository();
+
+    @Test
+    void save_assignsIdsAndStoresDefensiveCopies() {
+        Product pen = repo.save(pen());
+        pen.setName("changed outside");
+
+        Product stored = repo.findById(pen.getId()).orElseThrow();
+        stored.setName("changed again");
+
+        assertEquals(NAME_PEN, repo.findById(pen.getId()).orElseThrow().getName());
+        assertEquals(0L, pen.getVersion());
+    }
+
+    @Test
+    void updateReturning_checksVersionLikeConditionalUpdate() {
+        Product pen = repo.save(pen());
+
+        Product v1 = pen.copy();
+        v1.setName(NAME_PEN_V2);
+        ProductChange change = repo.updateReturning(v1).orElseThrow();
+        assertEquals(NAME_PEN, change.before().getName());
+        assertEquals(1L, change.after().getVersion());
+
+        Product stale = pen.copy();
+        stale.setVersion(0L);
+        ProductVersionConflictException e =
+                assertThrows(ProductVersionConflictException.class, () -> repo.updateReturning(stale));
+        assertEquals(1L, e.getCurrentVersion());
+
+        Product missing = pen.copy();
+        missing.setId(999L);
+        assertTrue(repo.updateReturning(missing).isEmpty());
+    }
+
+    @Test
+    void saveAll_withStaleVersion_savesNothing() {
+        Product pen = repo.save(pen());
+        Product stale = pen.copy();
+        stale.setVersion(5L);
+
+        assertThrows(ProductVersionConflictException.class, () -> repo.saveAll(List.of(pen(), stale)));
+
+        assertEquals(1, repo.count());
+    }
+
+    @Test
+    void findPage_returnsIdOrderedMatchesAfterCursor() {
+        for (int i = 0; i < 5; i++) {
+            repo.save(pen());
+        }
+
+        List<Product> page = repo.findPage(
+                new ProductSearchCriteria(Category.CLOTHES, null, null, null, null), 2L, 2);
+
+        assertEquals(List.of(3L, 4L), page.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void concurrentSaves_getUniqueIdsAndAllAreVisible() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Product p = repo.save(pen());
+                        p.setPrice(PRICE_249);
+                        repo.updateReturning(p);
+                        // снимок всегда согласован с числом товаров на момент чтения
+                        assertFalse(repo.findAll().isEmpty());
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Product> all = repo.findAll();
+        assertEquals(4_000, all.size());
+        assertEquals(4_000, all.stream().map(Product::getId).distinct().count());
+        assertTrue(all.stream().allMatch(p -> p.getVersion() == 1L && PRICE_249.equals(p.getPrice())));
+    }
+
+    private static Product pen() {
+        return new Product(null, NAME_PEN, BRAND_BIC, Category.CLOTHES, PRICE_199, null);
+    }
+}
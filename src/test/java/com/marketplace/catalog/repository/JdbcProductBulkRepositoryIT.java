@@ -0,0 +1,117 @@
+package com.marketplace.catalog.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.catalog.exception.ProductImportException;
+import com.marketplace.catalog.it.BasePgIT;
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.ImportRowError;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.repository.impl.jdbc.JdbcProductBulkRepository;
+import com.marketplace.catalog.repository.impl.jdbc.JdbcProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcProductBulkRepositoryIT extends BasePgIT {
+
+    private ProductBulkRepository bulkRepo;
+    private ProductRepository repo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        truncate(TBL_PRODUCTS);
+        bulkRepo = new JdbcProductBulkRepository(connectionFactory, SCHEMA);
+        repo = new JdbcProductRepository(connectionFactory, SCHEMA);
+    }
+
+    @Test
+    void importCsv_shouldInsertValidRowsAndReportInvalidOnes() {
+        String csv = """
+                name,brand,category,price,description
+                Pen,Bic,clothes,1.99,"Blue, fine"
+                ,Bic,CLOTHES,1.99,
+                Lamp,Ikea,HOME,-5,
+                Book,Penguin,BOOKS,12.50,
+                Cup,Ikea,KITCHEN,3,
+                """;
+
+        ImportResult result = bulkRepo.importCsv(new StringReader(csv), 10);
+
+        assertEquals(5, result.totalRows());
+        assertEquals(2, result.importedRows());
+        assertEquals(3, result.rejectedRows());
+        assertEquals(List.of(
+                new ImportRowError(2, "name must not be blank"),
+                new ImportRowError(3, "invalid price"),
+                new ImportRowError(5, "invalid category")), result.errors());
+
+        List<Product> products = repo.findAll();
+        assertEquals(List.of("Pen", "Book"), products.stream().map(Product::getName).toList());
+        assertEquals(Category.CLOTHES, products.get(0).getCategory());
+        assertEquals("Blue, fine", products.get(0).getDescription());
+        assertEquals(new BigDecimal("12.50"), products.get(1).getPrice());
+    }
+
+    @Test
+    void importCsv_shouldCapReportedErrors() {
+        String csv = "name,brand,category,price,description\n"
+                + ",Bic,BOOKS,1,\n".repeat(5);
+
+        ImportResult result = bulkRepo.importCsv(new StringReader(csv), 2);
+
+        assertEquals(5, result.rejectedRows());
+        assertEquals(2, result.errors().size());
+    }
+
+    @Test
+    void importCsv_malformedFile_shouldFailWithoutChanges() {
+        String csv = """
+                name,brand,category,price,description
+                Pen,Bic,BOOKS,1.99,,extra
+                """;
+
+        assertThrows(ProductImportException.class, () -> bulkRepo.importCsv(new StringReader(csv), 10));
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void export_csv_shouldWriteHeaderAndFilteredRows() {
+        repo.save(new Product(null, "Pen", "Bic", Category.BOOKS, new BigDecimal("1.99"), "Blue, fine"));
+        repo.save(new Product(null, "Lamp", "Ikea", Category.HOME, new BigDecimal("20.00"), null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = bulkRepo.export(out, BulkFormat.CSV, Category.BOOKS);
+
+        assertEquals(1, rows);
+        assertEquals("id,name,brand,category,price,description\n1,Pen,Bic,BOOKS,1.99,\"Blue, fine\"\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_ndjson_shouldWriteValidJsonPerLine() throws Exception {
+        repo.save(new Product(null, "Say \"hi\"", "Bic", Category.BOOKS, new BigDecimal("1.99"), "a\\b\nc"));
+        repo.save(new Product(null, "Lamp", "Ikea", Category.HOME, new BigDecimal("20.00"), null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = bulkRepo.export(out, BulkFormat.NDJSON, null);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("Say \"hi\"", first.get("name").asText());
+        assertEquals("a\\b\nc", first.get("description").asText());
+        assertEquals(new BigDecimal("1.99"), first.get("price").decimalValue());
+        assertTrue(new ObjectMapper().readTree(lines[1]).get("description").isNull());
+    }
+}
@@ -1,13 +1,20 @@
 package com.marketplace.catalog.repository;
 
+import com.marketplace.catalog.exception.ProductVersionConflictException;
+import com.marketplace.catalog.exception.RepositoryException;
 import com.marketplace.catalog.it.BasePgIT;
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.model.TextSearchMode;
 import com.marketplace.catalog.repository.impl.jdbc.JdbcProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.marketplace.catalog.TestConstants.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -82,4 +89,176 @@ class JdbcProductRepositoryIT extends BasePgIT {
         assertTrue(repo.findById(saved.getId()).isEmpty());
         assertEquals(0, repo.count());
     }
+
+    @Test
+    void search_shouldApplyAllFiltersInSql() {
+        repo.save(newProduct(NAME_PEN, PRICE_199));
+        repo.save(newProduct(NAME_PEN_V2, PRICE_249));
+        repo.save(new Product(null, "Lamp", "Ikea", Category.HOME, PRICE_249, "Desk lamp"));
+
+        List<Product> found = repo.search(
+                new ProductSearchCriteria(Category.CLOTHES, " bic ", PRICE_249, null, "V2"));
+
+        assertEquals(1, found.size());
+        assertEquals(NAME_PEN_V2, found.get(0).getName());
+    }
+
+    @Test
+    void search_brandWithSurroundingSpaces_matchesLikeInMemoryFilter() {
+        Product spaced = repo.save(new Product(null, NAME_PEN, "  Bic ", Category.CLOTHES, PRICE_199, DESC_DEF));
+        ProductSearchCriteria bic = new ProductSearchCriteria(null, BRAND_BIC, null, null, null);
+
+        List<Product> found = repo.search(bic);
+
+        assertEquals(List.of(spaced.getId()), found.stream().map(Product::getId).toList());
+        assertTrue(bic.matches(found.get(0)));
+    }
+
+    @Test
+    void search_shouldTreatLikeWildcardsLiterally() {
+        repo.save(newProduct("100% cotton", PRICE_199));
+        repo.save(newProduct("1000 cotton", PRICE_199));
+
+        List<Product> found = repo.search(new ProductSearchCriteria(null, null, null, null, "0%"));
+
+        assertEquals(1, found.size());
+        assertEquals("100% cotton", found.get(0).getName());
+    }
+
+    @Test
+    void search_fulltext_shouldMatchWordsAndRankByRelevance() {
+        repo.save(new Product(null, "Notebook", "Paper", Category.BOOKS, PRICE_199, "Red notebook for red pens"));
+        repo.save(new Product(null, "Red pen", "Bic", Category.BOOKS, PRICE_199, "Pen"));
+        repo.save(new Product(null, "Blue pen", "Bic", Category.BOOKS, PRICE_199, "Pen"));
+
+        List<Product> found = repo.search(new ProductSearchCriteria(
+                null, null, null, null, "red -blue", TextSearchMode.FULLTEXT));
+
+        assertEquals(List.of("Notebook", "Red pen"), found.stream().map(Product::getName).toList());
+    }
+
+    @Test
+    void findPage_shouldContinueAfterIdWithFiltersAndFulltext() {
+        Product first = repo.save(newProduct(NAME_PEN, PRICE_199));
+        repo.save(new Product(null, "Lamp", "Ikea", Category.HOME, PRICE_249, "Desk lamp"));
+        Product third = repo.save(newProduct(NAME_PEN_V2, PRICE_249));
+
+        ProductSearchCriteria clothes = new ProductSearchCriteria(Category.CLOTHES, null, null, null, null);
+        assertEquals(List.of(first.getId()), ids(repo.findPage(clothes, 0, 1)));
+        assertEquals(List.of(third.getId()), ids(repo.findPage(clothes, first.getId(), 10)));
+
+        ProductSearchCriteria all = new ProductSearchCriteria(null, null, null, null, null);
+        assertEquals(2, repo.findPage(all, first.getId(), 10).size());
+
+        ProductSearchCriteria lamp = new ProductSearchCriteria(
+                null, null, null, null, "lamp", TextSearchMode.FULLTEXT);
+        assertEquals(1, repo.findPage(lamp, 0, 10).size());
+    }
+
+    @Test
+    void forEach_shouldStreamAllRowsInIdOrderAcrossFetches() {
+        ProductRepository smallFetch = new JdbcProductRepository(connectionFactory, SCHEMA, 2);
+        for (int i = 0; i < 5; i++) {
+            repo.save(newProduct(NAME_PEN + i, PRICE_199));
+        }
+
+        List<Long> streamed = new ArrayList<>();
+        smallFetch.forEach(p -> streamed.add(p.getId()));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), streamed);
+    }
+
+    @Test
+    void saveAll_shouldInsertInChunksAndAssignIdsInOrder() {
+        ProductRepository smallBatch = new JdbcProductRepository(connectionFactory, SCHEMA, 100, 2);
+        Product existing = repo.save(newProduct(NAME_PEN, PRICE_199));
+        existing.setPrice(PRICE_249);
+
+        List<Product> batch = new ArrayList<>(List.of(existing));
+        for (int i = 0; i < 5; i++) {
+            batch.add(newProduct("Batch " + i, PRICE_199));
+        }
+
+        List<Product> saved = smallBatch.saveAll(batch);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), ids(saved));
+        assertEquals("Batch 4", repo.findById(6L).orElseThrow().getName());
+        assertEquals(PRICE_249, repo.findById(1L).orElseThrow().getPrice());
+        assertEquals(6, repo.count());
+    }
+
+    @Test
+    void saveAll_shouldRollBackWholeBatchOnFailure() {
+        Product invalid = new Product(null, null, BRAND_BIC, Category.CLOTHES, PRICE_199, DESC_DEF);
+        Product valid = newProduct(NAME_PEN, PRICE_199);
+
+        assertThrows(RepositoryException.class, () -> repo.saveAll(List.of(valid, invalid)));
+
+        assertEquals(0, repo.count());
+        assertNull(valid.getId());
+    }
+
+    @Test
+    void updateReturning_shouldReturnBeforeAndAfterOrEmpty() {
+        Product saved = repo.save(newProduct(NAME_PEN, PRICE_199));
+
+        Product changed = new Product(saved.getId(), NAME_PEN_V2, BRAND_BIC, Category.BOOKS, PRICE_249, null);
+        ProductChange change = repo.updateReturning(changed).orElseThrow();
+
+        assertEquals(NAME_PEN, change.before().getName());
+        assertEquals(Category.CLOTHES, change.before().getCategory());
+        assertEquals(NAME_PEN_V2, change.after().getName());
+        assertEquals(PRICE_249, change.after().getPrice());
+        assertNull(change.after().getDescription());
+        assertEquals(NAME_PEN_V2, repo.findById(saved.getId()).orElseThrow().getName());
+
+        changed.setId(999L);
+        assertTrue(repo.updateReturning(changed).isEmpty());
+    }
+
+    @Test
+    void updateReturning_withStaleVersion_shouldThrowConflictAndKeepRow() {
+        Product saved = repo.save(newProduct(NAME_PEN, PRICE_199));
+        assertEquals(0L, saved.getVersion());
+
+        Product first = new Product(saved.getId(), NAME_PEN_V2, BRAND_BIC, Category.BOOKS, PRICE_249, null);
+        first.setVersion(0L);
+        assertEquals(1L, repo.updateReturning(first).orElseThrow().after().getVersion());
+
+        // второй клиент прочитал ту же версию 0
+        Product second = new Product(saved.getId(), NAME_PEN, BRAND_BIC, Category.BOOKS, PRICE_199, null);
+        second.setVersion(0L);
+        ProductVersionConflictException e =
+                assertThrows(ProductVersionConflictException.class, () -> repo.updateReturning(second));
+
+        assertEquals(1L, e.getCurrentVersion());
+        Product stored = repo.findById(saved.getId()).orElseThrow();
+        assertEquals(NAME_PEN_V2, stored.getName());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void findAllByIds_shouldReturnOnlyExistingRows() {
+        Product pen = repo.save(newProduct(NAME_PEN, PRICE_199));
+        Product other = repo.save(newProduct(NAME_PEN_V2, PRICE_249));
+        repo.save(newProduct(NAME_PEN, PRICE_249));
+
+        List<Product> found = repo.findAllByIds(List.of(other.getId(), 999L, pen.getId()));
+
+        assertEquals(List.of(pen.getId(), other.getId()), ids(found));
+        assertTrue(repo.findAllByIds(List.of()).isEmpty());
+    }
+
+    @Test
+    void deleteReturning_shouldReturnDeletedRowOnce() {
+        Product saved = repo.save(newProduct(NAME_PEN, PRICE_199));
+
+        assertEquals(NAME_PEN, repo.deleteReturning(saved.getId()).orElseThrow().getName());
+        assertTrue(repo.deleteReturning(saved.getId()).isEmpty());
+        assertEquals(0, repo.count());
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
 }
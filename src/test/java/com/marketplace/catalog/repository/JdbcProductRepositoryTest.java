@@ -0,0 +1,54 @@
+package com.marketplace.catalog.repository;
+
+import com.marketplace.catalog.db.ConnectionFactory;
+import com.marketplace.catalog.exception.RepositoryException;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.repository.impl.jdbc.JdbcProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static com.marketplace.catalog.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JdbcProductRepositoryTest {
+
+    @Test
+    void saveAll_rollbackFails_originalCauseKeptAndIdsCleared() throws Exception {
+        // given: вставка прошла, но commit и rollback падают
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection c = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet keys = mock(ResultSet.class);
+        when(connectionFactory.getConnection()).thenReturn(c);
+        when(c.getAutoCommit()).thenReturn(true);
+        when(c.prepareStatement(anyString(), any(String[].class))).thenReturn(ps);
+        when(ps.getGeneratedKeys()).thenReturn(keys);
+        when(keys.next()).thenReturn(true);
+        when(keys.getLong(1)).thenReturn(42L);
+        SQLException commitFailure = new SQLException("commit failed");
+        SQLException rollbackFailure = new SQLException("connection reset");
+        doThrow(commitFailure).when(c).commit();
+        doThrow(rollbackFailure).when(c).rollback();
+
+        JdbcProductRepository repo = new JdbcProductRepository(connectionFactory, "catalog");
+        Product product = new Product(null, NAME_PEN, BRAND_BIC, Category.CLOTHES, PRICE_199, DESC_DEF);
+
+        // when
+        RepositoryException e = assertThrows(RepositoryException.class, () -> repo.saveAll(List.of(product)));
+
+        // then
+        assertSame(commitFailure, e.getCause());
+        assertArrayEquals(new Throwable[]{rollbackFailure}, commitFailure.getSuppressed());
+        assertNull(product.getId());
+        assertNull(product.getVersion());
+    }
+}
@@ -0,0 +1,93 @@
+package com.marketplace.catalog.repository;
+
+import com.marketplace.catalog.it.BasePgIT;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.repository.impl.jdbc.ProductSearchQuery;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет, что условия, которые строит {@link ProductSearchQuery}, совпадают
+ * с выражениями индексов из changelog 04 и планировщик может их использовать.
+ */
+class ProductSearchIndexesIT extends BasePgIT {
+
+    @BeforeAll
+    void fillProducts() throws Exception {
+        truncate(TBL_PRODUCTS);
+        try (Connection c = PG.createConnection(""); Statement st = c.createStatement()) {
+            st.executeUpdate("INSERT INTO " + TBL_PRODUCTS
+                    + " (name, brand, category, price, description)"
+                    + " SELECT 'Product ' || g, 'Brand' || (g % 50),"
+                    + " (ARRAY['ELECTRONICS','CLOTHES','BOOKS','HOME'])[1 + g % 4],"
+                    + " (g % 1000) + 0.99, 'Description ' || md5(g::text)"
+                    + " FROM generate_series(1, 5000) g");
+            st.execute("ANALYZE " + TBL_PRODUCTS);
+        }
+    }
+
+    @Test
+    void substringText_usesTrigramIndexes() throws Exception {
+        String plan = explain(new ProductSearchCriteria(null, null, null, null, "phone"));
+
+        assertTrue(plan.contains("idx_product_name_trgm"), plan);
+        assertTrue(plan.contains("idx_product_description_trgm"), plan);
+    }
+
+    @Test
+    void brand_usesTrigramIndex() throws Exception {
+        String plan = explain(new ProductSearchCriteria(null, "Brand7", null, null, null));
+
+        assertTrue(plan.contains("idx_product_brand_trgm"), plan);
+    }
+
+    @Test
+    void categoryAndPriceRange_useCompositeIndex() throws Exception {
+        String plan = explain(new ProductSearchCriteria(Category.BOOKS, null,
+                new BigDecimal("100"), new BigDecimal("200"), null));
+
+        assertTrue(plan.contains("idx_product_category_price"), plan);
+    }
+
+    @Test
+    void priceRangeOnly_usesPriceIndex() throws Exception {
+        String plan = explain(new ProductSearchCriteria(null, null,
+                new BigDecimal("100"), new BigDecimal("110"), null));
+
+        assertTrue(plan.contains("idx_product_price"), plan);
+    }
+
+    /**
+     * Seq scan отключён, чтобы результат не зависел от объёма тестовых данных:
+     * проверяется, что индекс подходит под условие, а не выбор планировщика по стоимости.
+     */
+    private String explain(ProductSearchCriteria criteria) throws Exception {
+        ProductSearchQuery query = ProductSearchQuery.of(criteria);
+        String sql = "EXPLAIN SELECT id FROM " + TBL_PRODUCTS + query.where();
+
+        try (Connection c = PG.createConnection("")) {
+            try (Statement st = c.createStatement()) {
+                st.execute("SET enable_seqscan = off");
+            }
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                query.bindWhere(ps, 1);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        }
+    }
+}
@@ -3,7 +3,14 @@ package com.marketplace.catalog.service;
 import com.marketplace.catalog.service.impl.InMemoryMetrics;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.marketplace.catalog.TestConstants.DELTA;
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,11 +24,11 @@ class MetricsServiceTest {
     void recordCreateUpdateDelete_shouldIncreaseCounters() {
         Metrics metrics = new InMemoryMetrics();
 
-        metrics.recordCreate();
-        metrics.recordCreate();
-        metrics.recordUpdate();
-        metrics.recordDelete();
-        metrics.recordDelete();
+        metrics.recordCreate(ONE_MS_NANOS);
+        metrics.recordCreate(ONE_MS_NANOS);
+        metrics.recordUpdate(ONE_MS_NANOS);
+        metrics.recordDelete(ONE_MS_NANOS);
+        metrics.recordDelete(ONE_MS_NANOS);
 
         assertEquals(2, metrics.getCreateCount());
         assertEquals(1, metrics.getUpdateCount());
@@ -41,4 +48,73 @@ class MetricsServiceTest {
 
         assertEquals(2.0, metrics.getAverageSearchTimeMillis(), 0.001);
     }
+
+    @Test
+    void snapshot_splitsSearchLatencyByCacheHitAndMiss() {
+        Metrics metrics = new InMemoryMetrics();
+
+        metrics.recordSearch(ONE_MS_NANOS, true);
+        metrics.recordSearch(THREE_MS_NANOS, false);
+        metrics.recordSearch(THREE_MS_NANOS, false);
+        metrics.recordLogin(ONE_MS_NANOS);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertEquals(1, snapshot.searchHitLatency().count());
+        assertEquals(2, snapshot.searchMissLatency().count());
+        assertEquals(3.0, snapshot.searchMissLatency().p50Millis(), 3.0 / 16);
+        assertEquals(1.0, snapshot.searchHitLatency().maxMillis(), DELTA);
+        assertEquals(1, snapshot.loginLatency().count());
+        assertEquals(LatencySummary.EMPTY, snapshot.createLatency());
+    }
+
+    @Test
+    void concurrentRecording_countsEveryEventAndSnapshotsStayConsistent() throws Exception {
+        Metrics metrics = new InMemoryMetrics();
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread = 100_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean done = new AtomicBoolean();
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        metrics.recordSearch(ONE_MS_NANOS, (i & 1) == 0);
+                        metrics.recordCreate(ONE_MS_NANOS);
+                    }
+                    return null;
+                }));
+            }
+            // Снимки во время записи: доля попаданий не выходит за границы
+            Future<?> reader = pool.submit(() -> {
+                start.await();
+                while (!done.get()) {
+                    MetricsSnapshot snapshot = metrics.snapshot();
+                    assertTrue(snapshot.cacheHitCount() <= snapshot.searchCount());
+                    assertTrue(snapshot.cacheHitRatio() <= 1.0);
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> f : writers) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            reader.get(10, TimeUnit.SECONDS);
+
+            long total = (long) threads * perThread;
+            MetricsSnapshot snapshot = metrics.snapshot();
+            assertEquals(total, snapshot.searchCount());
+            assertEquals(total / 2, snapshot.cacheHitCount());
+            assertEquals(total, snapshot.createCount());
+            assertEquals(1.0, snapshot.averageSearchTimeMillis(), DELTA);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
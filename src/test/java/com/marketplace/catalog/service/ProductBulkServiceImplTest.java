@@ -0,0 +1,219 @@
+package com.marketplace.catalog.service;
+
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.exception.ProductValidationException;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.ImportRowError;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.repository.ProductBulkRepository;
+import com.marketplace.catalog.repository.ProductRepository;
+import com.marketplace.catalog.service.impl.InMemoryMetrics;
+import com.marketplace.catalog.service.impl.NdjsonImportExecutor;
+import com.marketplace.catalog.service.impl.NdjsonImportSettings;
+import com.marketplace.catalog.service.impl.ProductBulkServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductBulkServiceImplTest {
+
+    private static final String ADMIN = "admin";
+
+    private ProductBulkRepository bulkRepository;
+    private ProductRepository productRepository;
+    private ProductService productService;
+    private Metrics metrics;
+    private ProductBulkService service;
+    private NdjsonImportExecutor importExecutor;
+
+    @BeforeEach
+    void setUp() {
+        this.bulkRepository = mock(ProductBulkRepository.class);
+        this.productService = mock(ProductService.class);
+        this.metrics = new InMemoryMetrics();
+        this.productRepository = mock(ProductRepository.class);
+        NdjsonImportSettings settings = new NdjsonImportSettings(3, 2, 2, 40, 1);
+        this.importExecutor = new NdjsonImportExecutor(settings);
+        this.service = new ProductBulkServiceImpl(bulkRepository, productRepository, productService, metrics,
+                settings, importExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importExecutor.close();
+    }
+
+    @Test
+    void importCsv_refreshesCachesOnceWhenRowsImported() {
+        when(bulkRepository.importCsv(any(), anyInt())).thenReturn(new ImportResult(3, 3, 0, List.of()));
+
+        service.importCsv(new StringReader(""), ADMIN);
+
+        verify(productService, times(1)).refresh();
+    }
+
+    @Test
+    void importCsv_nothingImported_keepsCaches() {
+        when(bulkRepository.importCsv(any(), anyInt())).thenReturn(new ImportResult(1, 0, 1, List.of()));
+
+        service.importCsv(new StringReader(""), ADMIN);
+
+        verify(productService, never()).refresh();
+    }
+
+    @Test
+    void importNdjson_reportsLineErrorsInOrderAndSavesValidRowsInBatches() {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(productRepository.saveAll(anyCollection())).thenAnswer(inv -> {
+            Collection<Product> batch = inv.getArgument(0);
+            batchSizes.add(batch.size());
+            return List.copyOf(batch);
+        });
+        String feed = String.join("\n",
+                "Pen|BOOKS|1.50",
+                "broken",
+                "",
+                "Lamp|HOME|-1",
+                "Cup|HOME|3.00",
+                "x".repeat(41),
+                "Mug|HOME|4.00\r",
+                "Book|BOOKS|10");
+
+        ImportResult result = service.importNdjson(stream(feed), ProductBulkServiceImplTest::decode, ADMIN);
+
+        assertEquals(7, result.totalRows());
+        assertEquals(4, result.importedRows());
+        assertEquals(3, result.rejectedRows());
+        assertEquals(List.of(2L, 4L, 6L), result.errors().stream().map(ImportRowError::row).toList());
+        assertEquals("Цена товара не может быть отрицательной", result.errors().get(1).message());
+        assertEquals(4, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+        verify(productService, times(1)).refresh();
+    }
+
+    @Test
+    void importNdjson_largeFeedThroughSmallQueues_importsEveryRow() {
+        when(productRepository.saveAll(anyCollection())).thenAnswer(inv -> List.copyOf(inv.<Collection<Product>>getArgument(0)));
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= 5_000; i++) {
+            feed.append("P").append(i).append("|HOME|").append(i).append('\n');
+        }
+
+        ImportResult result = service.importNdjson(stream(feed.toString()), ProductBulkServiceImplTest::decode, ADMIN);
+
+        assertEquals(5_000, result.importedRows());
+        assertTrue(result.errors().isEmpty());
+        assertTrue(result.rowsPerSecond() > 0);
+    }
+
+    @Test
+    void importNdjson_failedBatch_isReportedForEachOfItsLines() {
+        when(productRepository.saveAll(anyCollection())).thenThrow(new IllegalStateException("db down"));
+
+        ImportResult result = service.importNdjson(
+                stream("Pen|BOOKS|1\nCup|HOME|2\n"), ProductBulkServiceImplTest::decode, ADMIN);
+
+        assertEquals(0, result.importedRows());
+        assertEquals(List.of(new ImportRowError(1, "insert failed: db down"),
+                new ImportRowError(2, "insert failed: db down")), result.errors());
+        verify(productService, never()).refresh();
+    }
+
+    @Test
+    void importNdjson_stageFailure_isRethrownInsteadOfAbort() {
+        when(productRepository.saveAll(anyCollection())).thenAnswer(inv -> List.copyOf(inv.<Collection<Product>>getArgument(0)));
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= 1_000; i++) {
+            feed.append("P").append(i).append("|HOME|").append(i).append('\n');
+        }
+        Function<String, Product> crashing = line -> {
+            if (line.startsWith("P10|")) {
+                throw new Error("decoder crashed");
+            }
+            return decode(line);
+        };
+
+        Error error = assertThrows(Error.class, () -> service.importNdjson(stream(feed.toString()), crashing, ADMIN));
+
+        assertEquals("decoder crashed", error.getMessage());
+    }
+
+    @Test
+    void importNdjson_concurrentImportsBeyondLimit_waitForTheirTurn() throws Exception {
+        when(productRepository.saveAll(anyCollection())).thenAnswer(inv -> List.copyOf(inv.<Collection<Product>>getArgument(0)));
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= 500; i++) {
+            feed.append("P").append(i).append("|HOME|").append(i).append('\n');
+        }
+
+        // Пул рассчитан на один импорт: остальные ждут места, а не создают потоки
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<ImportResult>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() ->
+                        service.importNdjson(stream(feed.toString()), ProductBulkServiceImplTest::decode, ADMIN)));
+            }
+            for (Future<ImportResult> result : results) {
+                assertEquals(500, result.get(30, TimeUnit.SECONDS).importedRows());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void export_recordsRowsAndBytesWritten() {
+        byte[] payload = "id,name\n1,Pen\n2,Cup\n".getBytes(StandardCharsets.UTF_8);
+        when(bulkRepository.export(any(), eq(BulkFormat.CSV), eq(Category.HOME))).thenAnswer(inv -> {
+            OutputStream out = inv.getArgument(0);
+            out.write(payload, 0, payload.length);
+            return 2L;
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = service.export(out, BulkFormat.CSV, Category.HOME);
+
+        assertEquals(2, rows);
+        assertArrayEquals(payload, out.toByteArray());
+        assertEquals(1, metrics.getExportCount());
+        assertEquals(2, metrics.getExportedRows());
+        assertEquals(payload.length, metrics.getExportedBytes());
+        assertTrue(metrics.getExportBytesPerSecond() > 0);
+    }
+
+    /** Упрощённый формат строки для тестов конвейера: {@code name|CATEGORY|price}. */
+    private static Product decode(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length != 3) {
+            throw new ProductValidationException("malformed line");
+        }
+        return new Product(null, parts[0], "Brand", Category.valueOf(parts[1]), new BigDecimal(parts[2]), null);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
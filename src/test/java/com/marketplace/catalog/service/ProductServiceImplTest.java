@@ -0,0 +1,200 @@
+package com.marketplace.catalog.service;
+
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductChange;
+import com.marketplace.catalog.model.ProductPage;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import com.marketplace.catalog.model.TextSearchMode;
+import com.marketplace.catalog.repository.ProductRepository;
+import com.marketplace.catalog.service.impl.InMemoryMetrics;
+import com.marketplace.catalog.service.impl.ProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static com.marketplace.catalog.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ProductServiceImplTest {
+
+    private static final String ADMIN = "admin";
+
+    private ProductRepository repository;
+    private Metrics metrics;
+    private ProductService service;
+
+    @BeforeEach
+    void setUp() {
+        this.repository = mock(ProductRepository.class);
+        this.metrics = new InMemoryMetrics();
+        this.service = new ProductServiceImpl(repository, metrics);
+
+        when(repository.search(any(ProductSearchCriteria.class))).thenReturn(List.of());
+        when(repository.save(any(Product.class))).thenAnswer(inv -> {
+            Product p = inv.getArgument(0);
+            p.setId(100L);
+            return p;
+        });
+    }
+
+    @Test
+    void search_samePricesWithDifferentScale_hitCache() {
+        service.search(null, null, new BigDecimal("10"), null, null);
+        service.search(null, null, new BigDecimal("10.00"), null, null);
+
+        verify(repository, times(1)).search(any());
+        assertEquals(1, metrics.getCacheHitCount());
+    }
+
+    @Test
+    void createProduct_keepsUnaffectedQueriesCached() {
+        service.search(Category.BOOKS, null, null, null, null);
+        service.search(Category.CLOTHES, null, null, null, null);
+
+        service.createProduct(clothes(), ADMIN);
+
+        service.search(Category.BOOKS, null, null, null, null);
+        service.search(Category.CLOTHES, null, null, null, null);
+
+        verify(repository, times(1)).search(new ProductSearchCriteria(Category.BOOKS, null, null, null, null));
+        verify(repository, times(2)).search(new ProductSearchCriteria(Category.CLOTHES, null, null, null, null));
+        assertEquals(1, metrics.getCacheHitCount());
+    }
+
+    @Test
+    void findById_servedFromCacheUntilProductUpdated() {
+        when(repository.findById(1L)).thenReturn(Optional.of(book(1L)));
+        when(repository.updateReturning(any(Product.class)))
+                .thenAnswer(inv -> Optional.of(new ProductChange(book(1L), inv.getArgument(0))));
+
+        service.findById(1L);
+        service.findById(1L);
+        service.updateProduct(1L, book(null), ADMIN);
+        service.findById(1L);
+
+        verify(repository, times(2)).findById(1L);
+        assertEquals(1, metrics.getByIdHitCount());
+        assertEquals(2, metrics.getByIdMissCount());
+    }
+
+    @Test
+    void findByIds_singleRepositoryCallAndRequestOrder() {
+        when(repository.findAllByIds(any())).thenReturn(List.of(book(1L), book(3L), book(5L)));
+
+        List<Product> result = service.findByIds(List.of(5L, 1L, 42L, 5L, 3L));
+
+        assertEquals(List.of(5L, 1L, 3L), result.stream().map(Product::getId).toList());
+        verify(repository, times(1)).findAllByIds(any());
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void findPage_withFilters_readsPageByKeyInsteadOfFullSearch() {
+        ProductSearchCriteria books = new ProductSearchCriteria(Category.BOOKS, null, null, null, null);
+        when(repository.findPage(books, 3L, 3)).thenReturn(List.of(book(5L)));
+
+        ProductPage page = service.findPage(books, 3L, 2);
+
+        assertEquals(List.of(5L), page.items().stream().map(Product::getId).toList());
+        assertFalse(page.hasNext());
+        verify(repository, never()).search(any());
+    }
+
+    @Test
+    void findPage_fulltext_slicesCachedSearchResultAfterCursor() {
+        ProductSearchCriteria lamp = new ProductSearchCriteria(
+                null, null, null, null, "lamp", TextSearchMode.FULLTEXT);
+        // порядок по релевантности, а не по id
+        when(repository.search(lamp)).thenReturn(List.of(book(5L), book(1L), book(3L)));
+
+        ProductPage first = service.findPage(lamp, 0, 2);
+        ProductPage second = service.findPage(lamp, 1L, 2);
+
+        assertEquals(List.of(5L, 1L), first.items().stream().map(Product::getId).toList());
+        assertEquals(1L, first.nextAfterId());
+        assertEquals(List.of(3L), second.items().stream().map(Product::getId).toList());
+        assertFalse(second.hasNext());
+        verify(repository, times(1)).search(lamp);
+        verify(repository, never()).findPage(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void findPage_withoutFilters_readsOneExtraRowFromRepository() {
+        ProductSearchCriteria all = new ProductSearchCriteria(null, null, null, null, null);
+        when(repository.findPage(all, 10L, 3)).thenReturn(List.of(book(11L), book(12L), book(13L)));
+
+        ProductPage page = service.findPage(all, 10L, 2);
+
+        assertEquals(List.of(11L, 12L), page.items().stream().map(Product::getId).toList());
+        assertEquals(12L, page.nextAfterId());
+        verify(repository, never()).search(any());
+    }
+
+    @Test
+    void updateProduct_usesSingleRepositoryCallAndInvalidatesOldAndNewCategory() {
+        Product before = book(7L);
+        Product after = new Product(7L, NAME_PEN, BRAND_BIC, Category.CLOTHES, PRICE_199, DESC_DEF);
+        when(repository.updateReturning(any())).thenReturn(Optional.of(new ProductChange(before, after)));
+        service.search(Category.BOOKS, null, null, null, null);
+        service.search(Category.CLOTHES, null, null, null, null);
+        service.search(Category.HOME, null, null, null, null);
+
+        Optional<Product> result = service.updateProduct(7L, clothes(), ADMIN);
+
+        assertEquals(after, result.orElseThrow());
+        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+
+        service.search(Category.BOOKS, null, null, null, null);
+        service.search(Category.CLOTHES, null, null, null, null);
+        service.search(Category.HOME, null, null, null, null);
+        assertEquals(1, metrics.getCacheHitCount());
+    }
+
+    @Test
+    void updateProduct_missing_returnsEmptyWithoutMetrics() {
+        when(repository.updateReturning(any())).thenReturn(Optional.empty());
+
+        assertTrue(service.updateProduct(7L, clothes(), ADMIN).isEmpty());
+        assertEquals(0, metrics.getUpdateCount());
+    }
+
+    @Test
+    void deleteProduct_usesDeleteReturning() {
+        when(repository.deleteReturning(7L)).thenReturn(Optional.of(book(7L)));
+        when(repository.deleteReturning(8L)).thenReturn(Optional.empty());
+
+        assertTrue(service.deleteProduct(7L, ADMIN));
+        assertFalse(service.deleteProduct(8L, ADMIN));
+
+        verify(repository, never()).findById(any());
+        assertEquals(1, metrics.getDeleteCount());
+    }
+
+    @Test
+    void refresh_dropsCachedSearches() {
+        service.search(Category.BOOKS, null, null, null, null);
+
+        service.refresh();
+        service.search(Category.BOOKS, null, null, null, null);
+
+        verify(repository, times(2)).search(any());
+        assertEquals(0, metrics.getCacheHitCount());
+    }
+
+    private static Product book(Long id) {
+        return new Product(id, NAME_PEN, BRAND_BIC, Category.BOOKS, PRICE_199, DESC_DEF);
+    }
+
+    private static Product clothes() {
+        return new Product(null, NAME_PEN, BRAND_BIC, Category.CLOTHES, PRICE_199, DESC_DEF);
+    }
+}
@@ -0,0 +1,71 @@
+package com.marketplace.catalog.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private BoundedCache<String, String> cache(int maxEntries, long maxWeight) {
+        return new BoundedCache<>(maxEntries, maxWeight, TTL, String::length, clock::get);
+    }
+
+    @Test
+    void put_overMaxEntries_evictsLeastRecentlyUsed() {
+        BoundedCache<String, String> cache = cache(2, 1_000);
+
+        cache.put("a", "1", cache.epoch());
+        cache.put("b", "2", cache.epoch());
+        cache.get("a");                       // "b" становится самым старым
+        cache.put("c", "3", cache.epoch());
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void put_overMaxWeight_evictsUntilWeightFits() {
+        BoundedCache<String, String> cache = cache(8, 10);
+
+        cache.put("a", "xxxx", cache.epoch());
+        cache.put("b", "yyyy", cache.epoch());
+        cache.put("c", "zzzz", cache.epoch());
+
+        assertNull(cache.get("a"));
+        assertEquals(8, cache.weight());
+        assertFalse(cache.put("d", "way too heavy", cache.epoch()));
+    }
+
+    @Test
+    void get_afterTtl_returnsNullAndCountsEviction() {
+        BoundedCache<String, String> cache = cache(10, 1_000);
+        cache.put("a", "1", cache.epoch());
+
+        clock.addAndGet(TTL.toNanos());
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void put_withStaleEpoch_isRejected() {
+        BoundedCache<String, String> cache = cache(10, 1_000);
+        long epoch = cache.epoch();
+
+        cache.invalidateAll();
+
+        assertFalse(cache.put("a", "1", epoch));
+        assertNull(cache.get("a"));
+    }
+}
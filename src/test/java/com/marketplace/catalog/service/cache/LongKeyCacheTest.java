@@ -0,0 +1,85 @@
+package com.marketplace.catalog.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongKeyCacheTest {
+
+    @Test
+    void put_overMaxEntries_keepsSizeBounded() {
+        LongKeyCache<String> cache = new LongKeyCache<>(3);
+
+        for (long key = 1; key <= 10; key++) {
+            assertTrue(cache.put(key, "v" + key, cache.epoch()));
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals(7, cache.evictionCount());
+        assertEquals("v10", cache.get(10L));
+    }
+
+    @Test
+    void invalidate_keepsCollidingKeysReachable() {
+        LongKeyCache<Long> cache = new LongKeyCache<>(1_000);
+        // Ключи с начальными ячейками в конце и в начале таблицы: они образуют одну
+        // длинную цепочку пробирования, которая переходит через границу массива
+        long[] keys = new long[800];
+        int found = 0;
+        for (long key = 1; found < keys.length; key++) {
+            int slot = cache.slot(key);
+            if (slot < 16 || slot >= 2048 - 8) {
+                keys[found++] = key;
+            }
+        }
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = keys[random.nextInt(keys.length)];
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(key);
+                expected.remove(key);
+            } else {
+                cache.put(key, key + 1, cache.epoch());
+                expected.put(key, key + 1);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size());
+        expected.forEach((key, value) -> assertEquals(value, cache.get(key)));
+        for (long key : keys) {
+            if (!expected.containsKey(key)) {
+                assertNull(cache.get(key));
+            }
+        }
+    }
+
+    @Test
+    void put_afterInvalidation_isRejected() {
+        LongKeyCache<String> cache = new LongKeyCache<>(10);
+        long epoch = cache.epoch();
+
+        cache.invalidate(1L);
+
+        assertFalse(cache.put(1L, "stale", epoch));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void invalidateAll_removesEverything() {
+        LongKeyCache<String> cache = new LongKeyCache<>(10);
+        cache.put(1L, "a", cache.epoch());
+        cache.put(-5L, "b", cache.epoch());
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1L));
+        assertNull(cache.get(-5L));
+    }
+}
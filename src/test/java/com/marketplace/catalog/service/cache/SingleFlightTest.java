@@ -0,0 +1,91 @@
+package com.marketplace.catalog.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    @Test
+    void execute_concurrentSameKey_loadsOnceAndSharesResult() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger shared = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread leader = new Thread(() -> flights.execute("k", () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            awaitQuietly(release);
+            return "v";
+        }));
+        leader.start();
+        loaderStarted.await();
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            Thread t = new Thread(() -> {
+                SingleFlight.Outcome<String> outcome = flights.execute("k", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                });
+                if (outcome.shared() && "v".equals(outcome.value())) {
+                    shared.incrementAndGet();
+                }
+            });
+            waiters.add(t);
+            t.start();
+        }
+        for (Thread t : waiters) {
+            while (t.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+        }
+
+        release.countDown();
+        leader.join();
+        for (Thread t : waiters) {
+            t.join();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(WAITERS, shared.get());
+    }
+
+    @Test
+    void execute_afterCompletion_loadsAgain() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        flights.execute("k", loads::incrementAndGet);
+        SingleFlight.Outcome<Integer> second = flights.execute("k", loads::incrementAndGet);
+
+        assertEquals(2, second.value());
+        assertFalse(second.shared());
+    }
+
+    @Test
+    void execute_loaderFails_exceptionPropagatesAndKeyIsReleased() {
+        SingleFlight<String, String> flights = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class,
+                () -> flights.execute("k", () -> { throw new IllegalStateException("boom"); }));
+        assertEquals("ok", flights.execute("k", () -> "ok").value());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.marketplace.catalog.service.index;
+
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductSearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIndexTest {
+
+    private ProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductIndex();
+        index.loadIfNeeded(() -> List.of(
+                product(1L, "iPhone 15", "Apple", Category.ELECTRONICS, "999.99", "Smartphone"),
+                product(2L, "Galaxy S24", "Samsung", Category.ELECTRONICS, "799.00", "Android smartphone"),
+                product(3L, "T-Shirt", "Nike", Category.CLOTHES, "25.50", "Cotton shirt"),
+                product(4L, "MacBook Air", "Apple", Category.ELECTRONICS, "1299.00", "Laptop")
+        ));
+    }
+
+    @Test
+    void search_combinesCategoryBrandPriceAndText() {
+        assertIds(index.search(criteria(Category.ELECTRONICS, " APPLE ", null, null, null)), 1L, 4L);
+        assertIds(index.search(criteria(null, null, "799", "1000", null)), 1L, 2L);
+        assertIds(index.search(criteria(Category.ELECTRONICS, null, null, null, "SMARTPHONE")), 1L, 2L);
+        assertIds(index.search(criteria(null, "apple", "1000.00", null, "air")), 4L);
+        assertIds(index.search(criteria(null, "unknown", null, null, null)));
+    }
+
+    @Test
+    void loadIfNeeded_largeUnsortedCatalog_priceRangeStaysOrdered() {
+        ProductIndex large = new ProductIndex();
+        List<Product> catalog = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            // цены идут не по порядку id
+            catalog.add(product(id, "P" + id, "Brand", Category.BOOKS, (id * 7919 % 5_000) + ".00", null));
+        }
+        large.loadIfNeeded(() -> catalog);
+        large.upsert(product(5_001L, "Extra", "Brand", Category.BOOKS, "10.50", null));
+
+        assertIds(large.search(criteria(null, null, "10", "12", null)), 1_790L, 2_148L, 4_469L, 5_001L);
+        assertIds(large.search(criteria(null, null, "10.01", "10.99", null)), 5_001L);
+    }
+
+    @Test
+    void search_priceBoundsAreInclusiveAndScaleIndependent() {
+        assertIds(index.search(criteria(null, null, "25.5", "25.50", null)), 3L);
+        assertIds(index.search(criteria(null, null, "25.501", null, null)), 1L, 2L, 4L);
+    }
+
+    @Test
+    void upsertAndRemove_areAppliedIncrementally() {
+        index.upsert(product(3L, "T-Shirt", "Nike", Category.HOME, "5.00", "Cotton shirt"));
+        index.remove(1L);
+        index.upsert(product(5L, "Lamp", "Ikea", Category.HOME, "30.00", null));
+
+        assertIds(index.search(criteria(Category.CLOTHES, null, null, null, null)));
+        assertIds(index.search(criteria(Category.HOME, null, "10", null, null)), 5L);
+        assertIds(index.search(criteria(null, "apple", null, null, null)), 4L);
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void search_textUsesTrigramsAndVerifiesSubstring() {
+        assertIds(index.search(criteria(null, null, null, null, "phone")), 1L, 2L);
+        assertIds(index.search(criteria(null, null, null, null, "ph")), 1L, 2L);
+        // слова есть в описании товара 3, но не в таком порядке
+        assertIds(index.search(criteria(null, null, null, null, "shirt cot")));
+        assertIds(index.search(criteria(null, null, null, null, "zzz")));
+    }
+
+    @Test
+    void trigramPostings_areMaintainedIncrementally() {
+        long postingsBefore = index.trigramPostingCount();
+        index.upsert(product(5L, "Zebra", null, Category.BOOKS, "1.00", null));
+
+        assertIds(index.search(criteria(null, null, null, null, "ebr")), 5L);
+
+        index.remove(5L);
+
+        assertIds(index.search(criteria(null, null, null, null, "ebr")));
+        assertEquals(postingsBefore, index.trigramPostingCount());
+    }
+
+    @Test
+    void upsert_beforeLoad_isIgnored() {
+        ProductIndex fresh = new ProductIndex();
+        fresh.upsert(product(1L, "A", "B", Category.BOOKS, "1.00", null));
+
+        fresh.loadIfNeeded(List::of);
+
+        assertEquals(0, fresh.size());
+    }
+
+    private static ProductSearchCriteria criteria(Category category, String brand,
+                                                  String min, String max, String text) {
+        return new ProductSearchCriteria(category, brand,
+                min != null ? new BigDecimal(min) : null,
+                max != null ? new BigDecimal(max) : null,
+                text);
+    }
+
+    private static Product product(Long id, String name, String brand, Category category,
+                                   String price, String description) {
+        return new Product(id, name, brand, category, new BigDecimal(price), description);
+    }
+
+    private static void assertIds(List<Product> products, Long... expected) {
+        assertEquals(List.of(expected), products.stream().map(Product::getId).toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.marketplace.catalog.service.metrics;
+
+import com.marketplace.catalog.service.LatencySummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static final long ONE_MS_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void buckets_coverValuesContiguouslyWithBoundedRelativeError() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValue(index) <= value);
+            assertTrue(LatencyHistogram.highestValue(index) >= value);
+            assertTrue(LatencyHistogram.highestValue(index) - LatencyHistogram.lowestValue(index)
+                    <= LatencyHistogram.lowestValue(index) / 16);
+        }
+        for (int i = 1; i < LatencyHistogram.indexOf(Long.MAX_VALUE); i++) {
+            assertEquals(LatencyHistogram.highestValue(i - 1) + 1, LatencyHistogram.lowestValue(i));
+        }
+    }
+
+    @Test
+    void summary_reportsTailPercentilesAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(ONE_MS_NANOS);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100 * ONE_MS_NANOS);
+        }
+
+        LatencySummary summary = histogram.summary();
+
+        assertEquals(1000, summary.count());
+        assertEquals(1.0, summary.p50Millis(), 1.0 / 16);
+        assertEquals(1.0, summary.p99Millis(), 1.0 / 16);
+        assertEquals(100.0, summary.p999Millis(), 100.0 / 16);
+        assertEquals(100.0, summary.maxMillis(), 1e-9);
+    }
+
+    @Test
+    void decay_lowersWeightOfOldSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(100 * ONE_MS_NANOS);
+        }
+        histogram.decay(4);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(ONE_MS_NANOS);
+        }
+
+        LatencySummary summary = histogram.summary();
+
+        // 100 / 2^4 = 6 старых замеров против 100 новых
+        assertEquals(106, summary.count());
+        assertEquals(1.0, summary.p90Millis(), 1.0 / 16);
+        assertTrue(summary.p99Millis() >= 100.0 * 15 / 16);
+        // Итоги с момента старта не затухают
+        assertEquals(200, summary.totalCount());
+        assertEquals(100 * 100.0 + 100 * 1.0, summary.totalMillis(), 1e-9);
+
+        histogram.reset();
+        assertEquals(LatencySummary.EMPTY, histogram.summary());
+    }
+}
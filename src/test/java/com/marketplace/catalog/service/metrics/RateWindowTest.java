@@ -0,0 +1,64 @@
+package com.marketplace.catalog.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateWindowTest {
+
+    @Test
+    void sum_countsOnlyCompletedSecondsInsideWindow() {
+        RateWindow window = new RateWindow(10);
+        window.increment(0);
+        window.increment(5);
+        window.increment(5);
+        window.increment(9);
+        window.increment(10); // текущая секунда ещё не завершена
+
+        assertEquals(4, window.sum(10, 10));
+        assertEquals(3, window.sum(10, 5));
+        assertEquals(1, window.sum(10, 1));
+    }
+
+    @Test
+    void increment_overwritesSlotFromPreviousLap() {
+        RateWindow window = new RateWindow(5);
+        window.increment(1);
+        window.increment(1);
+        // Та же ячейка кольца через полный оборот
+        window.increment(7);
+
+        assertEquals(1, window.sum(8, 5));
+        // Секунды, которые не записывались с прошлого оборота, не считаются
+        assertEquals(0, window.sum(20, 5));
+    }
+
+    @Test
+    void increment_concurrentWritersInSameSecond_countEveryEvent() throws Exception {
+        RateWindow window = new RateWindow(5);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    window.increment(3 + i % 2);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40_000, window.sum(5, 5));
+        // Запоздавшее событие прошлого оборота не попадает в занятую ячейку
+        window.increment(10);
+        window.increment(4);
+        assertEquals(1, window.sum(11, 1));
+    }
+
+    @Test
+    void sum_longerThanCapacity_isRejected() {
+        RateWindow window = new RateWindow(5);
+        assertThrows(IllegalArgumentException.class, () -> window.sum(10, 6));
+    }
+}
@@ -0,0 +1,204 @@
+package com.marketplace.catalog.web.filter;
+
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.service.ProductBulkService;
+import com.marketplace.catalog.web.json.ObjectMapperFactory;
+import com.marketplace.catalog.web.mapper.ProductMapper;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
+import com.marketplace.catalog.web.metrics.HttpRoute;
+import com.marketplace.catalog.web.servlet.AdminProductServlet;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HttpMetricsFilterTest {
+
+    private HttpMetrics httpMetrics;
+    private HttpMetricsFilter filter;
+    private ByteArrayOutputStream body;
+
+    @BeforeEach
+    void setUp() {
+        this.httpMetrics = new HttpMetrics();
+        this.filter = new HttpMetricsFilter(httpMetrics);
+        this.body = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void doFilter_recordsRouteMethodStatusAndBodySizes() throws Exception {
+        // given
+        HttpServletRequest req = request("POST", "/api/products", null, 17);
+        HttpServletResponse resp = response(HttpServletResponse.SC_CREATED);
+        FilterChain chain = (request, response) -> {
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"id\":\"ё\"}");
+        };
+
+        // when
+        filter.doFilter(req, resp, chain);
+
+        // then
+        assertEquals("{\"id\":\"ё\"}", body.toString(StandardCharsets.UTF_8));
+        HttpMetrics.EndpointSnapshot e = single(httpMetrics.snapshot());
+        assertEquals("/api/products", e.route());
+        assertEquals("POST", e.method());
+        assertEquals(1, e.requests());
+        assertEquals(0, e.inFlight());
+        assertEquals(1, e.statusClass(2));
+        assertEquals(17, e.requestBytes());
+        // ё кодируется двумя байтами
+        assertEquals(11, e.responseBytes());
+        assertEquals(1, e.latency().count());
+    }
+
+    @Test
+    void doFilter_servletThrows_countsAs5xxAndRethrows() throws Exception {
+        // given
+        HttpServletRequest req = request("GET", "/api/products", "/42", -1);
+        HttpServletResponse resp = response(HttpServletResponse.SC_OK);
+        FilterChain chain = mock(FilterChain.class);
+        doThrow(new ServletException("boom")).when(chain).doFilter(any(), any());
+
+        // when
+        assertThrows(ServletException.class, () -> filter.doFilter(req, resp, chain));
+
+        // then
+        HttpMetrics.EndpointSnapshot e = single(httpMetrics.snapshot());
+        assertEquals("/api/products/{id}", e.route());
+        assertEquals(1, e.statusClass(5));
+        assertEquals(0, e.inFlight());
+    }
+
+    @Test
+    void doFilter_exportNotSupported_errorWrittenThroughWriterAfterReset() throws Exception {
+        // given
+        HttpServletRequest req = request("GET", "/api/admin/products", "/export", -1);
+        loginAsAdmin(req);
+        HttpServletResponse resp = response(HttpServletResponse.SC_NOT_IMPLEMENTED);
+        ProductBulkService bulkService = mock(ProductBulkService.class);
+        doThrow(new UnsupportedOperationException("COPY requires PostgreSQL"))
+                .when(bulkService).export(any(), eq(BulkFormat.CSV), any());
+
+        // when: сервлет берёт поток, сбрасывает ответ и пишет ошибку через writer
+        filter.doFilter(req, resp, (request, response) -> adminServlet(bulkService).service(request, response));
+
+        // then
+        String json = body.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"message\":\"Not supported by the configured repository\""), json);
+        verify(resp).reset();
+        HttpMetrics.EndpointSnapshot e = single(httpMetrics.snapshot());
+        assertEquals(1, e.statusClass(5));
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, e.responseBytes());
+    }
+
+    @Test
+    void doFilter_exportFailsAfterPartialWrite_discardedBytesAreNotCounted() throws Exception {
+        // given
+        HttpServletRequest req = request("GET", "/api/admin/products", "/export", -1);
+        loginAsAdmin(req);
+        HttpServletResponse resp = response(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        ProductBulkService bulkService = mock(ProductBulkService.class);
+        doAnswer(invocation -> {
+            invocation.<ServletOutputStream>getArgument(0).write("id,name\n".getBytes(StandardCharsets.UTF_8));
+            throw new IllegalStateException("connection lost");
+        }).when(bulkService).export(any(), eq(BulkFormat.CSV), any());
+
+        // when
+        filter.doFilter(req, resp, (request, response) -> adminServlet(bulkService).service(request, response));
+
+        // then: в теле только ошибка, начало выгрузки сброшено вместе с буфером
+        String json = body.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"message\":\"Internal server error\""), json);
+        HttpMetrics.EndpointSnapshot e = single(httpMetrics.snapshot());
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, e.responseBytes());
+    }
+
+    @Test
+    void routeAndMethodLabels_haveBoundedCardinality() {
+        assertEquals(HttpRoute.PRODUCT_BY_ID, HttpRoute.resolve("/api/products", "/123"));
+        assertEquals(HttpRoute.PRODUCT_BY_ID, HttpRoute.resolve("/api/products", "/abc"));
+        assertEquals(HttpRoute.PRODUCTS, HttpRoute.resolve("/api/products", "/"));
+        assertEquals(HttpRoute.OTHER, HttpRoute.resolve("/api/products", "/1/2"));
+        assertEquals(HttpRoute.AUTH_LOGIN, HttpRoute.resolve("/api/auth", "/login"));
+        assertEquals(HttpRoute.OTHER, HttpRoute.resolve("/api/auth", "/anything"));
+        assertEquals(HttpRoute.OTHER, HttpRoute.resolve("/favicon.ico", null));
+
+        httpMetrics.endpoint(HttpRoute.OTHER, "PROPFIND").started();
+        httpMetrics.endpoint(HttpRoute.OTHER, "BREW").started();
+
+        HttpMetrics.EndpointSnapshot e = single(httpMetrics.snapshot());
+        assertEquals("OTHER", e.method());
+        assertEquals(2, e.inFlight());
+    }
+
+    private static HttpMetrics.EndpointSnapshot single(List<HttpMetrics.EndpointSnapshot> endpoints) {
+        assertEquals(1, endpoints.size());
+        return endpoints.get(0);
+    }
+
+    private static AdminProductServlet adminServlet(ProductBulkService bulkService) {
+        return new AdminProductServlet(bulkService, ObjectMapperFactory.get(),
+                Mappers.getMapper(ProductMapper.class), mock(Validator.class));
+    }
+
+    private static void loginAsAdmin(HttpServletRequest req) {
+        HttpSession session = mock(HttpSession.class);
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
+    }
+
+    private static HttpServletRequest request(String method, String servletPath, String pathInfo, long length) {
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getMethod()).thenReturn(method);
+        when(req.getServletPath()).thenReturn(servletPath);
+        when(req.getPathInfo()).thenReturn(pathInfo);
+        when(req.getContentLengthLong()).thenReturn(length);
+        return req;
+    }
+
+    private HttpServletResponse response(int status) throws Exception {
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getStatus()).thenReturn(status);
+        when(resp.getCharacterEncoding()).thenReturn("UTF-8");
+        // Как у контейнера: сброс ответа выбрасывает ещё не отправленное тело
+        doAnswer(invocation -> {
+            body.reset();
+            return null;
+        }).when(resp).reset();
+        when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+        return resp;
+    }
+}
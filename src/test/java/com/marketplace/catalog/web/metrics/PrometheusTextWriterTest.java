@@ -0,0 +1,56 @@
+package com.marketplace.catalog.web.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrometheusTextWriterTest {
+
+    @Test
+    void sample_writesNumbersWithoutExponentOrTrailingZeros() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrometheusTextWriter out = new PrometheusTextWriter(bytes);
+
+        out.sample("a", 0)
+                .sample("b", 1234567)
+                .sample("c", 0.05)
+                .sample("d", -2.5)
+                .sample("e", 0.0000004)
+                .sample("f", 1.9999999999)
+                .sample("g", Double.NaN)
+                .sample("h", Double.POSITIVE_INFINITY);
+        out.flush();
+
+        assertEquals("""
+                a 0
+                b 1234567
+                c 0.05
+                d -2.5
+                e 0.0000004
+                f 2
+                g NaN
+                h +Inf
+                """, bytes.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void familyAndLabels_followExpositionFormat() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrometheusTextWriter out = new PrometheusTextWriter(bytes);
+
+        out.family("x_seconds", "summary", "Latency.")
+                .sample("x_seconds", "operation", "create", "quantile", "0.99", 0.25)
+                .sample("x_seconds_count", "operation", "create", 3);
+        out.flush();
+
+        assertEquals("""
+                # HELP x_seconds Latency.
+                # TYPE x_seconds summary
+                x_seconds{operation="create",quantile="0.99"} 0.25
+                x_seconds_count{operation="create"} 3
+                """, bytes.toString(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,214 @@
+package com.marketplace.catalog.web.servlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.catalog.exception.ProductImportException;
+import com.marketplace.catalog.exception.ProductValidationException;
+import com.marketplace.catalog.model.BulkFormat;
+import com.marketplace.catalog.model.Category;
+import com.marketplace.catalog.model.ImportResult;
+import com.marketplace.catalog.model.ImportRowError;
+import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.User;
+import com.marketplace.catalog.service.ProductBulkService;
+import com.marketplace.catalog.web.dto.ErrorResponse;
+import com.marketplace.catalog.web.dto.ImportReportDto;
+import com.marketplace.catalog.web.json.ObjectMapperFactory;
+import com.marketplace.catalog.web.mapper.ProductMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AdminProductServletTest {
+
+    private ProductBulkService bulkService;
+    private AdminProductServlet servlet;
+    private ObjectMapper objectMapper;
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() {
+        this.bulkService = mock(ProductBulkService.class);
+        this.objectMapper = ObjectMapperFactory.get();
+        // EL в тестах нет (его даёт контейнер), поэтому сообщения без выражений
+        this.validator = Validation.byDefaultProvider()
+                .configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator();
+        this.servlet = new AdminProductServlet(
+                bulkService, objectMapper, Mappers.getMapper(ProductMapper.class), validator);
+    }
+
+    @Test
+    void givenAdminAndCsv_whenImport_then200AndReportReturned() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.ADMIN);
+
+        when(req.getPathInfo()).thenReturn("/import");
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("name,brand\n")));
+        when(bulkService.importCsv(any(), eq("admin"))).thenReturn(
+                new ImportResult(3, 2, 1, List.of(new ImportRowError(2, "invalid price"))));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPost(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        ImportReportDto report = objectMapper.readValue(sw.toString(), ImportReportDto.class);
+        assertEquals(2, report.importedRows());
+        assertEquals(1, report.rejectedRows());
+        assertEquals(2, report.errors().get(0).row());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenNdjson_whenImport_thenLinesDecodedWithBeanValidation() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.ADMIN);
+
+        when(req.getPathInfo()).thenReturn("/import");
+        when(req.getParameter("format")).thenReturn("ndjson");
+        when(bulkService.importNdjson(any(), any(), eq("admin")))
+                .thenReturn(new ImportResult(0, 0, 0, List.of(), 1_000_000L));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPost(req, resp);
+
+        // then
+        ArgumentCaptor<Function<String, Product>> decoder = ArgumentCaptor.forClass(Function.class);
+        verify(bulkService).importNdjson(any(), decoder.capture(), eq("admin"));
+
+        Product product = decoder.getValue().apply(
+                "{\"name\":\"Pen\",\"brand\":\"Bic\",\"category\":\"books\",\"price\":1.5}");
+        assertEquals("Pen", product.getName());
+        assertThrows(ProductValidationException.class,
+                () -> decoder.getValue().apply("{\"name\":\"Pen\",\"category\":\"BOOKS\",\"price\":1}"));
+        assertThrows(ProductValidationException.class, () -> decoder.getValue().apply("{\"name\":"));
+
+        ImportReportDto report = objectMapper.readValue(sw.toString(), ImportReportDto.class);
+        assertEquals(1, report.durationMillis());
+    }
+
+    @Test
+    void givenMalformedFile_whenImport_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.ADMIN);
+
+        when(req.getPathInfo()).thenReturn("/import");
+        when(req.getReader()).thenReturn(new BufferedReader(new StringReader("x")));
+        when(bulkService.importCsv(any(), anyString()))
+                .thenThrow(new ProductImportException("extra data after last expected column", null));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPost(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        ErrorResponse error = objectMapper.readValue(sw.toString(), ErrorResponse.class);
+        assertEquals("Import failed", error.message());
+    }
+
+    @Test
+    void givenViewer_whenImport_then403() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.VIEWER);
+        when(req.getPathInfo()).thenReturn("/import");
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPost(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_FORBIDDEN);
+        verifyNoInteractions(bulkService);
+    }
+
+    @Test
+    void givenNdjsonAndCategory_whenExport_thenStreamedToOutputStream() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.ADMIN);
+
+        when(req.getPathInfo()).thenReturn("/export");
+        when(req.getParameter("format")).thenReturn("ndjson");
+        when(req.getParameter("category")).thenReturn("books");
+        ServletOutputStream out = mock(ServletOutputStream.class);
+        when(resp.getOutputStream()).thenReturn(out);
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(resp).setContentType("application/x-ndjson");
+        verify(bulkService).export(out, BulkFormat.NDJSON, Category.BOOKS);
+    }
+
+    @Test
+    void givenUnknownFormat_whenExport_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        loginAs(req, Role.ADMIN);
+
+        when(req.getPathInfo()).thenReturn("/export");
+        when(req.getParameter("format")).thenReturn("xml");
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verifyNoInteractions(bulkService);
+    }
+
+    private static void loginAs(HttpServletRequest req, Role role) {
+        HttpSession session = mock(HttpSession.class);
+        when(req.getSession(false)).thenReturn(session);
+        String login = role == Role.ADMIN ? "admin" : "user";
+        when(session.getAttribute("currentUser")).thenReturn(new User(1L, login, "pwd", role));
+    }
+}
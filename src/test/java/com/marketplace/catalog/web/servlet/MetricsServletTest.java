@@ -4,8 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marketplace.catalog.model.Role;
 import com.marketplace.catalog.model.User;
 import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.MetricsSnapshot;
+import com.marketplace.catalog.web.dto.HttpEndpointDto;
 import com.marketplace.catalog.web.dto.MetricsDto;
 import com.marketplace.catalog.web.json.ObjectMapperFactory;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
+import com.marketplace.catalog.web.metrics.HttpRoute;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -14,6 +18,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -21,6 +26,7 @@ import static org.mockito.Mockito.*;
 class MetricsServletTest {
 
     private Metrics metrics;
+    private HttpMetrics httpMetrics;
     private MetricsServlet servlet;
     private ObjectMapper objectMapper;
 
@@ -28,7 +34,8 @@ class MetricsServletTest {
     void setUp() {
         this.metrics = mock(Metrics.class);
         this.objectMapper = ObjectMapperFactory.get();
-        this.servlet = new MetricsServlet(metrics, objectMapper);
+        this.httpMetrics = new HttpMetrics();
+        this.servlet = new MetricsServlet(metrics, httpMetrics, objectMapper);
     }
 
     @Test
@@ -42,13 +49,15 @@ class MetricsServletTest {
         when(session.getAttribute("currentUser"))
                 .thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
 
-        when(metrics.getCreateCount()).thenReturn(5L);
-        when(metrics.getUpdateCount()).thenReturn(2L);
-        when(metrics.getDeleteCount()).thenReturn(1L);
-        when(metrics.getSearchCount()).thenReturn(10L);
-        when(metrics.getCacheHitCount()).thenReturn(7L);
-        when(metrics.getAverageSearchTimeMillis()).thenReturn(3.5);
-        when(metrics.getCacheHitRatio()).thenReturn(0.7);
+        when(metrics.snapshot()).thenReturn(MetricsSnapshot.builder()
+                .createCount(5L)
+                .updateCount(2L)
+                .deleteCount(1L)
+                .searchCount(10L)
+                .cacheHitCount(7L)
+                .averageSearchTimeMillis(3.5)
+                .cacheHitRatio(0.7)
+                .build());
 
         StringWriter sw = new StringWriter();
         when(resp.getWriter()).thenReturn(new PrintWriter(sw));
@@ -58,6 +67,9 @@ class MetricsServletTest {
 
         // then
         verify(resp).setStatus(HttpServletResponse.SC_OK);
+        // все значения берутся из одного снимка
+        verify(metrics).snapshot();
+        verify(metrics, never()).getCreateCount();
 
         String body = sw.toString();
         MetricsDto dto = objectMapper.readValue(body, MetricsDto.class);
@@ -69,6 +81,45 @@ class MetricsServletTest {
         assertEquals(7L, dto.cacheHitCount());
         assertEquals(3.5, dto.averageSearchTimeMillis());
         assertEquals(0.7, dto.cacheHitRatio());
+        assertEquals(0, dto.httpEndpoints().size());
+    }
+
+    @Test
+    void getMetrics_adminUser_includesPerRouteHttpMetrics() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser"))
+                .thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
+        when(metrics.snapshot()).thenReturn(MetricsSnapshot.builder().build());
+
+        HttpMetrics.Endpoint byId = httpMetrics.endpoint(HttpRoute.PRODUCT_BY_ID, "GET");
+        byId.started();
+        byId.finished(200, 0, 150, 2_000_000);
+        byId.started();
+        byId.finished(404, 0, 60, 1_000_000);
+        byId.started();
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        MetricsDto dto = objectMapper.readValue(sw.toString(), MetricsDto.class);
+        assertEquals(1, dto.httpEndpoints().size());
+        HttpEndpointDto e = dto.httpEndpoints().get(0);
+        assertEquals("/api/products/{id}", e.route());
+        assertEquals("GET", e.method());
+        assertEquals(2, e.requests());
+        assertEquals(1, e.inFlight());
+        assertEquals(Map.of("2xx", 1L, "4xx", 1L), e.statuses());
+        assertEquals(210, e.responseBytes());
+        assertEquals(2, e.latency().count());
     }
 
     @Test
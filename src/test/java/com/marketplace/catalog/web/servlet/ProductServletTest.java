@@ -1,13 +1,18 @@
 package com.marketplace.catalog.web.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.catalog.exception.ProductVersionConflictException;
 import com.marketplace.catalog.model.Category;
 import com.marketplace.catalog.model.Product;
+import com.marketplace.catalog.model.ProductPage;
+import com.marketplace.catalog.model.ProductSearchCriteria;
 import com.marketplace.catalog.model.Role;
+import com.marketplace.catalog.model.TextSearchMode;
 import com.marketplace.catalog.model.User;
 import com.marketplace.catalog.service.ProductService;
 import com.marketplace.catalog.web.dto.ErrorResponse;
 import com.marketplace.catalog.web.dto.ProductDto;
+import com.marketplace.catalog.web.dto.ProductPageDto;
 import com.marketplace.catalog.web.json.ObjectMapperFactory;
 import com.marketplace.catalog.web.mapper.ProductMapper;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,11 +22,14 @@ import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.marketplace.catalog.web.servlet.TestUtils.toServletInputStream;
 import static org.junit.jupiter.api.Assertions.*;
@@ -68,7 +76,11 @@ class ProductServletTest {
                 new BigDecimal("100.00"),
                 "Smartphone"
         );
-        when(productService.findAll()).thenReturn(List.of(p));
+        doAnswer(inv -> {
+            Consumer<Product> action = inv.getArgument(0);
+            action.accept(p);
+            return null;
+        }).when(productService).forEachProduct(any());
 
         StringWriter sw = new StringWriter();
         when(resp.getWriter()).thenReturn(new PrintWriter(sw));
@@ -77,7 +89,8 @@ class ProductServletTest {
         servlet.doGet(req, resp);
 
         // then
-        verify(productService).findAll();
+        verify(productService).forEachProduct(any());
+        verify(productService, never()).findAll();
         verify(resp).setStatus(HttpServletResponse.SC_OK);
 
         ProductDto[] dtos = objectMapper.readValue(sw.toString(), ProductDto[].class);
@@ -88,6 +101,83 @@ class ProductServletTest {
         assertEquals("ELECTRONICS", dtos[0].category());
     }
 
+    @Test
+    void givenStreamFailsAfterFirstRow_whenGetAll_thenArrayIsNotClosed() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        Product p = new Product(1L, "Phone", "ACME", Category.ELECTRONICS, new BigDecimal("100.00"), null);
+        doAnswer(inv -> {
+            Consumer<Product> action = inv.getArgument(0);
+            action.accept(p);
+            throw new IllegalStateException("cursor timeout");
+        }).when(productService).forEachProduct(any());
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+        // первая строка уже ушла клиенту
+        when(resp.isCommitted()).thenReturn(true);
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        String body = sw.toString();
+        assertTrue(body.startsWith("[{"));
+        assertFalse(body.endsWith("]"));
+        assertThrows(Exception.class, () -> objectMapper.readValue(body, ProductDto[].class));
+        verify(resp, never()).reset();
+        verify(resp, never()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void givenStreamFailsBeforeCommit_whenGetAll_thenResponseResetTo500() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        Product p = new Product(1L, "Phone", "ACME", Category.ELECTRONICS, new BigDecimal("100.00"), null);
+        doAnswer(inv -> {
+            Consumer<Product> action = inv.getArgument(0);
+            action.accept(p);
+            throw new IllegalStateException("cursor timeout");
+        }).when(productService).forEachProduct(any());
+
+        // после reset() контейнер отдаёт очищенный буфер
+        FlushTrackingWriter partial = new FlushTrackingWriter();
+        StringWriter afterReset = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(partial), new PrintWriter(afterReset));
+        // flush writer'а в контейнере фиксирует ответ — до reset() его быть не должно
+        boolean[] flushedBeforeReset = new boolean[1];
+        doAnswer(inv -> {
+            flushedBeforeReset[0] = partial.flushed;
+            return null;
+        }).when(resp).reset();
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).reset();
+        assertFalse(flushedBeforeReset[0]);
+        verify(resp).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        ErrorResponse error = objectMapper.readValue(afterReset.toString(), ErrorResponse.class);
+        assertEquals("Internal server error", error.message());
+    }
+
     @Test
     void givenNoUser_whenGetAll_then401AndErrorReturned() throws Exception {
         // given
@@ -201,4 +291,314 @@ class ProductServletTest {
         ErrorResponse error = objectMapper.readValue(sw.toString(), ErrorResponse.class);
         assertEquals("Admin role required", error.message());
     }
+
+    @Test
+    void givenFulltextMode_whenSearch_thenCriteriaPassedToService() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("text")).thenReturn("red pen");
+        when(req.getParameter("textMode")).thenReturn("fulltext");
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        ProductSearchCriteria expected = new ProductSearchCriteria(
+                null, null, null, null, "red pen", TextSearchMode.FULLTEXT);
+        when(productService.search(expected)).thenReturn(List.of());
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(productService).search(expected);
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void givenInvalidTextMode_whenSearch_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("text")).thenReturn("pen");
+        when(req.getParameter("textMode")).thenReturn("regex");
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(productService, never()).search(any(ProductSearchCriteria.class));
+    }
+
+    @Test
+    void givenLimitAndCursor_whenGetAll_thenPageWithNextCursorReturned() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("limit")).thenReturn("1");
+        when(req.getParameter("cursor")).thenReturn(PageCursor.encode(5L));
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        Product p = new Product(7L, "Phone", "ACME", Category.ELECTRONICS, new BigDecimal("100.00"), null);
+        ProductSearchCriteria all = new ProductSearchCriteria(null, null, null, null, null);
+        when(productService.findPage(all, 5L, 1)).thenReturn(new ProductPage(List.of(p), 7L));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        ProductPageDto page = objectMapper.readValue(sw.toString(), ProductPageDto.class);
+        assertEquals(1, page.items().size());
+        assertEquals(7L, page.items().get(0).id());
+        assertEquals(7L, PageCursor.decode(page.nextCursor()));
+        verify(productService, never()).findAll();
+    }
+
+    @Test
+    void givenBrokenCursor_whenGetAll_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("cursor")).thenReturn("not-a-cursor");
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(productService, never()).findPage(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void givenIfMatch_whenUpdateProduct_thenExpectedVersionPassedAndNewETagReturned() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn("/10");
+        when(req.getHeader("If-Match")).thenReturn("\"3\"");
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
+        when(req.getInputStream()).thenReturn(toServletInputStream(LAPTOP_JSON));
+
+        Product updated = new Product(10L, "Laptop", "ACME", Category.ELECTRONICS, new BigDecimal("1000.0"), null);
+        updated.setVersion(4L);
+        when(productService.updateProduct(eq(10L), any(Product.class), eq("admin")))
+                .thenReturn(Optional.of(updated));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPut(req, resp);
+
+        // then
+        ArgumentCaptor<Product> captor = ArgumentCaptor.forClass(Product.class);
+        verify(productService).updateProduct(eq(10L), captor.capture(), eq("admin"));
+        assertEquals(3L, captor.getValue().getVersion());
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(resp).setHeader("ETag", "\"4\"");
+        assertEquals(4L, objectMapper.readValue(sw.toString(), ProductDto.class).version());
+    }
+
+    @Test
+    void givenStaleIfMatch_whenUpdateProduct_then412WithCurrentETag() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn("/10");
+        when(req.getHeader("If-Match")).thenReturn("W/\"3\"");
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
+        when(req.getInputStream()).thenReturn(toServletInputStream(LAPTOP_JSON));
+
+        when(productService.updateProduct(eq(10L), any(Product.class), eq("admin")))
+                .thenThrow(new ProductVersionConflictException(10L, 5L));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPut(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+        verify(resp).setHeader("ETag", "\"5\"");
+        ErrorResponse error = objectMapper.readValue(sw.toString(), ErrorResponse.class);
+        assertEquals("Product version mismatch", error.message());
+        assertTrue(error.details().contains("currentVersion=5"));
+    }
+
+    @Test
+    void givenMalformedIfMatch_whenUpdateProduct_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn("/10");
+        when(req.getHeader("If-Match")).thenReturn("3");
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(1L, "admin", "pwd", Role.ADMIN));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doPut(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(productService, never()).updateProduct(anyLong(), any(), anyString());
+    }
+
+    @Test
+    void givenIds_whenGetAll_thenProductsReturnedInRequestOrder() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("ids")).thenReturn("7, 3");
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        when(productService.findByIds(List.of(7L, 3L))).thenReturn(List.of(
+                new Product(7L, "Phone", "ACME", Category.ELECTRONICS, new BigDecimal("100.00"), null),
+                new Product(3L, "Book", "ACME", Category.BOOKS, new BigDecimal("10.00"), null)));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        ProductDto[] dtos = objectMapper.readValue(sw.toString(), ProductDto[].class);
+        assertEquals(List.of(7L, 3L), List.of(dtos[0].id(), dtos[1].id()));
+        verify(productService, never()).search(any(ProductSearchCriteria.class));
+    }
+
+    @Test
+    void givenNonNumericIds_whenGetAll_then400() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn(null);
+        when(req.getParameter(anyString())).thenReturn(null);
+        when(req.getParameter("ids")).thenReturn("1,abc");
+
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(productService, never()).findByIds(any());
+    }
+
+    @Test
+    void givenExistingId_whenGetById_then200WithETag() throws Exception {
+        // given
+        HttpServletRequest req  = mock(HttpServletRequest.class);
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        HttpSession session = mock(HttpSession.class);
+
+        when(req.getPathInfo()).thenReturn("/7");
+        when(req.getSession(false)).thenReturn(session);
+        when(session.getAttribute("currentUser")).thenReturn(new User(2L, "user", "pwd", Role.VIEWER));
+
+        Product p = new Product(7L, "Phone", "ACME", Category.ELECTRONICS, new BigDecimal("100.00"), null);
+        p.setVersion(2L);
+        when(productService.findById(7L)).thenReturn(Optional.of(p));
+        when(productService.findById(8L)).thenReturn(Optional.empty());
+
+        StringWriter sw = new StringWriter();
+        when(resp.getWriter()).thenReturn(new PrintWriter(sw));
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(resp).setHeader("ETag", "\"2\"");
+        assertEquals(7L, objectMapper.readValue(sw.toString(), ProductDto.class).id());
+
+        // отсутствующий товар — 404
+        when(req.getPathInfo()).thenReturn("/8");
+        when(resp.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        servlet.doGet(req, resp);
+        verify(resp).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    private static final String LAPTOP_JSON = """
+            {
+              "name": "Laptop",
+              "brand": "ACME",
+              "category": "ELECTRONICS",
+              "price": 1000.0
+            }
+            """;
+
+    private static final class FlushTrackingWriter extends StringWriter {
+        private boolean flushed;
+
+        @Override
+        public void flush() {
+            flushed = true;
+            super.flush();
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package com.marketplace.catalog.web.servlet;
+
+import com.marketplace.catalog.db.PoolStats;
+import com.marketplace.catalog.service.LatencySummary;
+import com.marketplace.catalog.service.Metrics;
+import com.marketplace.catalog.service.MetricsSnapshot;
+import com.marketplace.catalog.web.metrics.HttpMetrics;
+import com.marketplace.catalog.web.metrics.HttpRoute;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrometheusMetricsServletTest {
+
+    private Metrics metrics;
+    private HttpMetrics httpMetrics;
+    private ByteArrayOutputStream body;
+    private HttpServletResponse resp;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.metrics = mock(Metrics.class);
+        this.httpMetrics = new HttpMetrics();
+        this.body = new ByteArrayOutputStream();
+        this.resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new CapturingOutputStream(body));
+
+        when(metrics.snapshot()).thenReturn(MetricsSnapshot.builder()
+                .createCount(5L)
+                .searchCount(10L)
+                .cacheHitCount(7L)
+                .searchMissLatency(new LatencySummary(3, 8.0, 11.0, 12.0, 12.0, 12.5, 40, 250.0))
+                .build());
+    }
+
+    @Test
+    void getMetrics_validToken_writesSnapshotAndPoolInTextFormat() throws Exception {
+        // given
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getHeader("Authorization")).thenReturn("Bearer secret");
+        HttpMetrics.Endpoint endpoint = httpMetrics.endpoint(HttpRoute.PRODUCT_BY_ID, "GET");
+        endpoint.started();
+        endpoint.finished(404, 0, 120, 2_000_000);
+        PrometheusMetricsServlet servlet = new PrometheusMetricsServlet(
+                metrics, httpMetrics, () -> new PoolStats(2, 3, 0, 10), "secret");
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        verify(resp).setContentType("text/plain; version=0.0.4; charset=utf-8");
+        String text = body.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("# TYPE catalog_product_operations_total counter\n"));
+        assertTrue(text.contains("catalog_product_operations_total{operation=\"create\"} 5\n"));
+        assertTrue(text.contains("catalog_search_cache_hits_total 7\n"));
+        assertTrue(text.contains(
+                "catalog_operation_latency_seconds{operation=\"search_miss\",quantile=\"0.99\"} 0.012\n"));
+        assertTrue(text.contains("catalog_operation_latency_seconds_count{operation=\"search_miss\"} 40\n"));
+        assertTrue(text.contains("catalog_operation_latency_seconds_sum{operation=\"search_miss\"} 0.25\n"));
+        assertTrue(text.contains("catalog_db_pool_connections{state=\"active\"} 2\n"));
+        assertTrue(text.contains(
+                "catalog_http_requests_total{route=\"/api/products/{id}\",method=\"GET\",status=\"4xx\"} 1\n"));
+        assertTrue(text.contains(
+                "catalog_http_response_bytes_total{route=\"/api/products/{id}\",method=\"GET\"} 120\n"));
+    }
+
+    @Test
+    void getMetrics_withoutPool_omitsPoolFamilies() throws Exception {
+        // given
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getHeader("Authorization")).thenReturn("Bearer secret");
+        PrometheusMetricsServlet servlet = new PrometheusMetricsServlet(metrics, httpMetrics, () -> null, "secret");
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).setStatus(HttpServletResponse.SC_OK);
+        String text = body.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("catalog_searches_total 10\n"));
+        assertFalse(text.contains("catalog_db_pool"));
+    }
+
+    @Test
+    void getMetrics_wrongToken_returns401WithoutReadingMetrics() throws Exception {
+        // given
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getHeader("Authorization")).thenReturn("Bearer guess");
+        PrometheusMetricsServlet servlet = new PrometheusMetricsServlet(metrics, httpMetrics, () -> null, "secret");
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(metrics, never()).snapshot();
+    }
+
+    @Test
+    void getMetrics_tokenNotConfigured_returns404WithoutReadingMetrics() throws Exception {
+        // given
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        PrometheusMetricsServlet servlet = new PrometheusMetricsServlet(metrics, httpMetrics, () -> null, "");
+
+        // when
+        servlet.doGet(req, resp);
+
+        // then
+        verify(resp).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verify(metrics, never()).snapshot();
+    }
+
+    private static final class CapturingOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream target;
+
+        CapturingOutputStream(ByteArrayOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) {
+            target.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}